@@ -6,7 +6,8 @@ import android.content.Intent;
 import android.util.Log;
 
 /**
- * Reschedules the daily widget refresh alarm after device reboot.
+ * Reschedules the daily widget refresh alarm after device reboot. Enabled only while widgets
+ * are placed (WidgetSyncManager).
  */
 public class BootReceiver extends BroadcastReceiver {
   private static final String TAG = "BootReceiver";
@@ -17,8 +18,9 @@ public class BootReceiver extends BroadcastReceiver {
     if (!Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) return;
 
     try {
-      WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-      WidgetsUpdater.updateAll(context);
+      // Alarms do not survive a reboot; re-arm it if widgets are placed
+      WidgetSyncManager.requestSync(context);
+      WidgetRefreshExecutor.requestRefresh(context, "boot", goAsync());
       Log.d(TAG, "Rescheduled daily widget refresh after boot");
     } catch (Exception e) {
       Log.e(TAG, "Failed to reschedule after boot", e);
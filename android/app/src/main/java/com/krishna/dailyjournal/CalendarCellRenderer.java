@@ -1,11 +1,12 @@
 package com.krishna.dailyjournal;
 
-import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.RectF;
 import android.graphics.Typeface;
+import android.util.LruCache;
+import com.krishna.dailyjournal.core.CalendarGrid;
+import com.krishna.dailyjournal.core.CalendarMonth;
 
 /**
  * Renders individual calendar day cells as bitmaps for RemoteViews.
@@ -13,87 +14,178 @@ import android.graphics.Typeface;
  * - Day number
  * - Habit progress ring around the number
  * - Single diagonal slash for days with diary entries
+ *
+ * Rendered cells are kept in an LRU cache keyed by everything that affects their pixels,
+ * so unchanged days and blank padding cells are reused across refreshes instead of
+ * being redrawn. Cached bitmaps are never modified after they are handed out.
+ *
+ * The rings come from {@link RingMasks}: alpha masks tinted by the paint colour as they are
+ * drawn, so an accent change only re-composites cells and never re-rasterises arcs. The
+ * month grid draws straight into its own bitmap without going through per-cell bitmaps.
  */
 public final class CalendarCellRenderer {
     private CalendarCellRenderer() {}
 
-    public static Bitmap render(Context context, int sizeDp, int dayNumber, int habitProgress, 
-                                 boolean hasEntry, boolean isToday, int accentColor) {
-        float density = context.getResources().getDisplayMetrics().density;
-        int sizePx = Math.max(1, Math.round(sizeDp * density));
+    // Roughly two full months of 42 cells at xxhdpi
+    private static final int CACHE_BUDGET_BYTES = 4 * 1024 * 1024;
 
-        Bitmap bmp = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(bmp);
+    private static final LruCache<Long, Bitmap> CELL_CACHE = new LruCache<Long, Bitmap>(CACHE_BUDGET_BYTES) {
+        @Override
+        protected int sizeOf(Long key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
 
-        if (dayNumber <= 0) {
-            return bmp;
+    private static final String[] DAY_LABELS = new String[32];
+    static {
+        for (int i = 1; i < DAY_LABELS.length; i++) {
+            DAY_LABELS[i] = String.valueOf(i);
         }
+    }
+
+    // Shared drawing state; guarded by the class lock in the public entry points
+    private static final int TRACK_COLOR = 0xFF3A3A3A;
+
+    private static final Canvas CANVAS = new Canvas();
+    private static final Paint MASK = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private static final Paint TEXT = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final Paint SLASH = new Paint(Paint.ANTI_ALIAS_FLAG);
+    static {
+        TEXT.setColor(0xFFE0E0E0);
+        TEXT.setTextAlign(Paint.Align.CENTER);
+        TEXT.setTypeface(Typeface.DEFAULT);
+
+        SLASH.setStyle(Paint.Style.STROKE);
+        SLASH.setStrokeCap(Paint.Cap.ROUND);
+    }
+
+    /**
+     * Render one square cell at an exact pixel size, so it is shown without scaling.
+     */
+    public static synchronized Bitmap renderPx(int sizePx, int dayNumber, int habitProgress,
+                                               boolean hasEntry, boolean isToday, int accentColor) {
+        return renderCell(Math.max(1, sizePx), dayNumber, habitProgress, hasEntry, isToday, accentColor);
+    }
+
+    /**
+     * Render a whole month grid (6 rows x 7 columns, Saturday first) into one bitmap of the
+     * given size. Each cell is drawn centred in its slot, matching the per-cell layout's
+     * centerInside scaling, so both modes look the same.
+     *
+     * @param startOffset grid index of day 1
+     * @param today day of month to mark as today, or 0 for none
+     */
+    public static synchronized Bitmap renderGrid(int widthPx, int heightPx,
+                                                 CalendarMonth month,
+                                                 int startOffset, int today, int accentColor) {
+        Bitmap grid = Bitmap.createBitmap(widthPx, heightPx, Bitmap.Config.ARGB_8888);
+        float slotW = widthPx / (float) CalendarGrid.COLUMNS;
+        float slotH = heightPx / (float) CalendarGrid.ROWS;
+        int cellPx = Math.max(1, (int) Math.min(slotW, slotH));
+
+        Canvas canvas = new Canvas(grid);
+        for (int row = 0; row < CalendarGrid.ROWS; row++) {
+            for (int col = 0; col < CalendarGrid.COLUMNS; col++) {
+                int day = CalendarGrid.dayAt(row * CalendarGrid.COLUMNS + col, startOffset, month.daysInMonth);
+                if (day == 0) continue;
+
+                float left = col * slotW + (slotW - cellPx) / 2f;
+                float top = row * slotH + (slotH - cellPx) / 2f;
+                int saved = canvas.save();
+                canvas.translate(left, top);
+                draw(canvas, cellPx, day, month.getProgress(day), month.hasEntry(day), accentColor);
+                canvas.restoreToCount(saved);
+            }
+        }
+        return grid;
+    }
+
+    private static Bitmap renderCell(int sizePx, int dayNumber, int habitProgress,
+                                     boolean hasEntry, boolean isToday, int accentColor) {
+        // Blank cells share one transparent bitmap per size
+        boolean blank = dayNumber <= 0;
+        int clamped = Math.max(0, Math.min(100, habitProgress));
+        long key = cacheKey(
+            sizePx,
+            blank ? 0 : dayNumber,
+            blank ? 0 : clamped,
+            !blank && hasEntry,
+            !blank && isToday,
+            // Accent only shows up in the arc and the slash
+            blank || (clamped == 0 && !hasEntry) ? 0 : accentColor
+        );
 
+        Bitmap cached = CELL_CACHE.get(key);
+        if (cached != null && !cached.isRecycled()) {
+            return cached;
+        }
+
+        Bitmap bmp = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        if (!blank) {
+            CANVAS.setBitmap(bmp);
+            draw(CANVAS, sizePx, dayNumber, clamped, hasEntry, accentColor);
+            // Don't keep the cached bitmap attached to the shared canvas
+            CANVAS.setBitmap(null);
+        }
+        CELL_CACHE.put(key, bmp);
+        return bmp;
+    }
+
+    // Draws one cell at the canvas origin
+    private static void draw(Canvas canvas, int sizePx, int dayNumber, int clamped,
+                             boolean hasEntry, int accentColor) {
         float centerX = sizePx / 2f;
         float centerY = sizePx / 2f;
         float radius = sizePx * 0.44f;
         float strokeWidth = sizePx * 0.10f;
+        float inset = centerX - radius;
 
         // Draw habit progress ring (background track)
-        Paint ringBg = new Paint(Paint.ANTI_ALIAS_FLAG);
-        ringBg.setStyle(Paint.Style.STROKE);
-        ringBg.setStrokeWidth(strokeWidth);
-        ringBg.setColor(0xFF3A3A3A);
-
-        RectF oval = new RectF(
-            centerX - radius,
-            centerY - radius,
-            centerX + radius,
-            centerY + radius
-        );
-        
-        canvas.drawArc(oval, 0, 360, false, ringBg);
-        
+        MASK.setColor(TRACK_COLOR);
+        canvas.drawBitmap(RingMasks.track(sizePx, strokeWidth, inset), 0, 0, MASK);
+
         // Draw habit progress ring (foreground arc)
-        if (habitProgress > 0) {
-            Paint ringFg = new Paint(Paint.ANTI_ALIAS_FLAG);
-            ringFg.setStyle(Paint.Style.STROKE);
-            ringFg.setStrokeWidth(strokeWidth);
-            ringFg.setColor(accentColor);
-            ringFg.setStrokeCap(Paint.Cap.ROUND);
-            
-            int clamped = Math.max(0, Math.min(100, habitProgress));
-            float sweep = (360f * clamped) / 100f;
-            canvas.drawArc(oval, 270f, sweep, false, ringFg);
+        Bitmap arc = RingMasks.arc(sizePx, strokeWidth, inset, clamped, true);
+        if (arc != null) {
+            MASK.setColor(accentColor);
+            canvas.drawBitmap(arc, 0, 0, MASK);
         }
 
         // Draw day number
-        Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        textPaint.setColor(0xFFE0E0E0);
-        textPaint.setTextSize(sizePx * 0.36f);
-        textPaint.setTextAlign(Paint.Align.CENTER);
-        textPaint.setTypeface(Typeface.DEFAULT);
-        
-        Paint.FontMetrics fm = textPaint.getFontMetrics();
+        TEXT.setTextSize(sizePx * 0.36f);
+
+        Paint.FontMetrics fm = TEXT.getFontMetrics();
         float textY = centerY - (fm.ascent + fm.descent) / 2f;
-        
-        canvas.drawText(String.valueOf(dayNumber), centerX, textY, textPaint);
+
+        canvas.drawText(DAY_LABELS[dayNumber], centerX, textY, TEXT);
 
         // Draw single clean diagonal slash for diary entries
         if (hasEntry) {
             float slashLen = radius * 0.6f;
-            
-            Paint slashPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            slashPaint.setStyle(Paint.Style.STROKE);
-            slashPaint.setStrokeWidth(sizePx * 0.06f);
-            slashPaint.setColor(accentColor);
-            slashPaint.setStrokeCap(Paint.Cap.ROUND);
-            
+
+            SLASH.setStrokeWidth(sizePx * 0.06f);
+            SLASH.setColor(accentColor);
+
             // Single diagonal line from top-right to bottom-left
             canvas.drawLine(
-                centerX + slashLen, 
+                centerX + slashLen,
                 centerY - slashLen,
-                centerX - slashLen, 
+                centerX - slashLen,
                 centerY + slashLen,
-                slashPaint
+                SLASH
             );
         }
+    }
 
-        return bmp;
+    // sizePx:12 | day:5 | progress:7 | hasEntry:1 | isToday:1 | accent:32
+    private static long cacheKey(int sizePx, int dayNumber, int progress,
+                                 boolean hasEntry, boolean isToday, int accentColor) {
+        long key = Math.min(sizePx, 0xFFF);
+        key = (key << 5) | (dayNumber & 0x1F);
+        key = (key << 7) | (progress & 0x7F);
+        key = (key << 1) | (hasEntry ? 1 : 0);
+        key = (key << 1) | (isToday ? 1 : 0);
+        key = (key << 32) | (accentColor & 0xFFFFFFFFL);
+        return key;
     }
 }
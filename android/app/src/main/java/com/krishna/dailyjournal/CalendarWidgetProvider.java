@@ -5,18 +5,48 @@ import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
 import android.util.Log;
+import android.util.SizeF;
+import android.util.SparseArray;
+import android.view.View;
 import android.widget.RemoteViews;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Locale;
+import com.krishna.dailyjournal.core.CalendarGrid;
+import com.krishna.dailyjournal.core.CalendarMonth;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class CalendarWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "CalendarWidget";
 
+    // Snapshot inputs this widget renders from; WidgetsUpdater skips it when they and
+    // viewedMonthsHash() are unchanged
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME
+        | WidgetSnapshot.INPUT_CALENDAR
+        | WidgetSnapshot.INPUT_DATE;
+
+    // Draw the month into one bitmap when the widget bounds are known (see getGridBuckets)
+    private static final boolean USE_COMPOSITE_GRID = true;
+
+    // Cell size for per-cell rendering until the launcher reports the widget's size
+    private static final int CELL_SIZE_DP = 42;
+
+    // Space taken by padding, header, accent line and week headers in widget_calendar.xml
+    private static final int GRID_CHROME_WIDTH_DP = 20;
+    private static final int GRID_CHROME_HEIGHT_DP = 60;
+
+    // WidgetBitmapCache slot holding the last composite grid of each widget
+    private static final String GRID_CACHE_SLOT = "grid";
+
     // Cell IDs for each row/column - must match layout
     private static final int[][] CELL_IDS = {
         {R.id.cell_0_0, R.id.cell_0_1, R.id.cell_0_2, R.id.cell_0_3, R.id.cell_0_4, R.id.cell_0_5, R.id.cell_0_6},
@@ -27,132 +57,788 @@ public class CalendarWidgetProvider extends AppWidgetProvider {
         {R.id.cell_5_0, R.id.cell_5_1, R.id.cell_5_2, R.id.cell_5_3, R.id.cell_5_4, R.id.cell_5_5, R.id.cell_5_6}
     };
 
+    // Last state pushed to each widget, used to send only changed cells (in-memory only;
+    // a fresh process simply starts with a full update)
+    private static final SparseArray<RenderedState> LAST_RENDERED = new SparseArray<>();
+
+    // Months either side of the viewed one, rendered ahead per widget so navigation only
+    // swaps views (in-memory only; rebuilt after the next update)
+    private static final SparseArray<SparseArray<ReadyView>> READY = new SparseArray<>();
+
+    // Previous/next/current month taps, handled in onReceive
+    private static final String ACTION_NAVIGATE = "com.krishna.dailyjournal.CALENDAR_NAVIGATE";
+    private static final String EXTRA_DELTA = "delta";
+    private static final int NAV_REQUEST_BASE = 10_000;
+    private static final SparseArray<PendingIntent> NAV_INTENTS = new SparseArray<>();
+
+    // Viewed month per widget, kept only while it isn't the current month, with the month it
+    // was chosen in: the pin lapses once the calendar moves on
+    private static final String PREFS_NAME = "calendar_widget";
+    private static final String PREF_MONTH = "month_";
+    private static final String PREF_SET_IN = "set_in_";
+
+    @Override
+    public void onEnabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetSyncManager.sync(context);
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+    @Override
+    public void onAppWidgetOptionsChanged(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int appWidgetId,
+        Bundle newOptions
+    ) {
+        // A resize changes the grid bounds, which forces a full update below.
+        WidgetRefreshExecutor.execute("resize", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, new int[]{appWidgetId}, WidgetDataReader.getSnapshot(context, today), today);
+        });
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (ACTION_NAVIGATE.equals(intent.getAction())) {
+            int appWidgetId = intent.getIntExtra(
+                AppWidgetManager.EXTRA_APPWIDGET_ID, AppWidgetManager.INVALID_APPWIDGET_ID);
+            if (appWidgetId != AppWidgetManager.INVALID_APPWIDGET_ID) {
+                navigate(context, appWidgetId, intent.getIntExtra(EXTRA_DELTA, 0));
+            }
+            return;
         }
+        super.onReceive(context, intent);
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
+        SharedPreferences.Editor editor = prefs(context).edit();
+        synchronized (LAST_RENDERED) {
+            for (int appWidgetId : appWidgetIds) {
+                LAST_RENDERED.remove(appWidgetId);
+                editor.remove(PREF_MONTH + appWidgetId);
+                editor.remove(PREF_SET_IN + appWidgetId);
+            }
+        }
+        editor.apply();
+        synchronized (NAV_INTENTS) {
+            for (int appWidgetId : appWidgetIds) {
+                for (int delta = -1; delta <= 1; delta++) {
+                    NAV_INTENTS.remove(navigateRequestCode(appWidgetId, delta));
+                }
+            }
+        }
+        synchronized (READY) {
+            for (int appWidgetId : appWidgetIds) {
+                READY.remove(appWidgetId);
+            }
+        }
+        WidgetRefreshExecutor.execute("delete", goAsync(),
+            () -> WidgetBitmapCache.remove(context, appWidgetIds));
+    }
+
+    /** Returns false if any instance failed to update. */
+    public static boolean updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // The viewed month and the size buckets are the only per-instance inputs; instances
+        // that agree on both (e.g. the same calendar on two home-screen pages) render once.
+        Map<ViewKey, int[]> groups = WidgetGroups.group(appWidgetIds, appWidgetId -> new ViewKey(
+            viewedMonth(context, appWidgetId, today),
+            getGridBuckets(context, appWidgetManager, appWidgetId)));
+        boolean updated = true;
+        for (Map.Entry<ViewKey, int[]> group : groups.entrySet()) {
+            updated &= updateGroup(context, appWidgetManager, group.getValue(), group.getKey(), snapshot, today);
+        }
+
+        // Draw the months either side once every visible update has gone out
+        WidgetRefreshExecutor.execute("prerender", null,
+            () -> prerenderNeighbours(context, groups, snapshot, today));
+        return updated;
+    }
+
+    /**
+     * Render once for widgets that share a view. Their composite grids are cached in
+     * WidgetBitmapCache under the group's first id. Returns false if the update failed.
+     */
+    private static boolean updateGroup(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        ViewKey key,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
+            MonthPage page = new MonthPage(snapshot, today, key.month, key.buckets);
+            RenderedState state = page.state;
+            GridBounds[] buckets = key.buckets;
+            RenderedState last = lastRendered(appWidgetIds);
+
+            // Same month, size and accent: push only what changed. Partial updates can't
+            // address the layouts of a size-mapped RemoteViews, so those always update fully.
+            if (last != null && buckets.length == 1 && last.sameLayout(state)) {
+                GridBounds bounds = buckets[0];
+                RemoteViews partial = new RemoteViews(context.getPackageName(), R.layout.widget_calendar);
+                int changed = 0;
+
+                if (!last.dateDay.equals(state.dateDay)) {
+                    partial.setTextViewText(R.id.calendar_date_day, state.dateDay);
+                    changed++;
+                }
+                if (bounds.composite) {
+                    if (!Arrays.equals(last.cells, state.cells)) {
+                        applyCompositeGrid(context, appWidgetIds[0], partial, bounds, 0, page);
+                        changed++;
+                    }
+                } else {
+                    for (int i = 0; i < state.cells.length; i++) {
+                        if (last.cells[i] != state.cells[i]) {
+                            applyCell(partial, i, bounds.cellPx, state.cells[i], state.accent);
+                            changed++;
+                        }
+                    }
+                }
+
+                if (changed > 0) {
+                    WidgetMetrics.recordViews(TAG + " partial", partial);
+                    appWidgetManager.partiallyUpdateAppWidget(appWidgetIds, partial);
+                }
+                remember(appWidgetIds, state);
+                Log.d(TAG, "Calendar widget partially updated: " + changed + " views changed");
+                return true;
+            }
+
+            RemoteViews[] layouts = buildLayouts(context, appWidgetIds[0], page);
+
+            if (WidgetMetrics.detailed()) {
+                // Parcel size of the first layout in both grid modes, as the "CalendarWidget composite
+                // parcel" and "CalendarWidget per-cell parcel" histograms in the metrics dump
+                GridBounds bounds = buckets[0];
+                RemoteViews other = new RemoteViews(context.getPackageName(), R.layout.widget_calendar);
+                if (bounds.composite) {
+                    applyCellGrid(other, bounds.cellPx, state.cells, state.accent);
+                } else if (bounds.widthPx > 0) {
+                    other.setImageViewBitmap(R.id.calendar_grid_image, CalendarCellRenderer.renderGrid(
+                        bounds.widthPx, bounds.heightPx, page.data, page.startOffset, page.today, state.accent));
+                }
+                if (bounds.composite || bounds.widthPx > 0) {
+                    int current = WidgetMetrics.parcelSize(layouts[0]);
+                    int alternative = WidgetMetrics.parcelSize(other);
+                    WidgetMetrics.recordBytes(TAG + " composite parcel", bounds.composite ? current : alternative);
+                    WidgetMetrics.recordBytes(TAG + " per-cell parcel", bounds.composite ? alternative : current);
+                }
+            }
 
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_calendar);
+            // The bitmaps are shared; only the navigation targets differ per instance
+            for (int appWidgetId : appWidgetIds) {
+                RemoteViews views = forWidget(context, buckets, layouts, appWidgetId, appWidgetIds.length > 1);
+                WidgetMetrics.recordViews(TAG, views);
+                appWidgetManager.updateAppWidget(appWidgetId, views);
+            }
+            remember(appWidgetIds, state);
+            Log.d(TAG, "Calendar widget updated successfully");
+            return true;
 
-            // Get theme accent color
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating calendar widget", e);
+            return false;
+        }
+    }
+
+    /**
+     * One layout per size bucket showing {@code page}, without the per-widget navigation.
+     * {@code cacheId} owns the composite grids in WidgetBitmapCache, or is
+     * INVALID_APPWIDGET_ID for months that are not on screen.
+     */
+    private static RemoteViews[] buildLayouts(Context context, int cacheId, MonthPage page) {
+        RenderedState state = page.state;
+        GridBounds[] buckets = state.buckets;
+        RemoteViews[] layouts = new RemoteViews[buckets.length];
+        for (int b = 0; b < buckets.length; b++) {
+            RemoteViews layout = WidgetTemplates.create(
+                context, R.layout.widget_calendar, CalendarWidgetProvider::bindTemplate);
 
             // Apply accent to the bar
             try {
-                views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
+                layout.setInt(R.id.widget_accent, "setBackgroundColor", state.accent);
             } catch (Exception e) {
                 Log.w(TAG, "Could not set accent color", e);
             }
 
-            // Get current date info
-            Calendar now = Calendar.getInstance();
-            int currentYear = now.get(Calendar.YEAR);
-            int currentMonth = now.get(Calendar.MONTH);
-            int currentDay = now.get(Calendar.DAY_OF_MONTH);
-
-            // Set month name (short) with accent color
-            SimpleDateFormat monthFormat = new SimpleDateFormat("MMM", Locale.getDefault());
-            String monthName = monthFormat.format(now.getTime()).toUpperCase();
-            views.setTextViewText(R.id.calendar_month, monthName);
-            views.setTextColor(R.id.calendar_month, accent);
-
-            // Set date and day
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy EEE", Locale.getDefault());
-            String dateDay = dateFormat.format(now.getTime()).toUpperCase();
-            views.setTextViewText(R.id.calendar_date_day, dateDay);
-
-            // Get calendar data for the month
-            Map<String, int[]> calendarData = WidgetDataReader.getCalendarData(context, currentYear, currentMonth);
-
-            // Calculate first day of month and days in month
-            Calendar firstOfMonth = Calendar.getInstance();
-            firstOfMonth.set(currentYear, currentMonth, 1);
-            
-            // Week starts on Saturday (index 0)
-            // Java Calendar: SATURDAY=7, SUNDAY=1, MONDAY=2, etc.
-            int firstDayOfWeek = firstOfMonth.get(Calendar.DAY_OF_WEEK);
-            // Convert to our grid: SAT=0, SUN=1, MON=2, TUE=3, WED=4, THU=5, FRI=6
-            int startOffset;
-            if (firstDayOfWeek == Calendar.SATURDAY) {
-                startOffset = 0;
+            // Set month name with accent color, then date and day
+            layout.setTextViewText(R.id.calendar_month, state.monthName);
+            layout.setTextColor(R.id.calendar_month, state.accent);
+            layout.setTextViewText(R.id.calendar_date_day, state.dateDay);
+
+            GridBounds bounds = buckets[b];
+            if (bounds.composite) {
+                applyCompositeGrid(context, cacheId, layout, bounds, b, page);
             } else {
-                startOffset = firstDayOfWeek; // SUNDAY=1, MONDAY=2, etc.
-            }
-
-            int daysInMonth = firstOfMonth.getActualMaximum(Calendar.DAY_OF_MONTH);
-
-            // Cell size for rendering - larger for better visibility
-            int cellSizeDp = 42;
-
-            // Render each cell
-            int dayCounter = 1;
-            for (int row = 0; row < 6; row++) {
-                for (int col = 0; col < 7; col++) {
-                    int cellIndex = row * 7 + col;
-                    int dayNumber = 0;
-                    int habitProgress = 0;
-                    boolean hasEntry = false;
-                    boolean isToday = false;
-
-                    if (cellIndex >= startOffset && dayCounter <= daysInMonth) {
-                        dayNumber = dayCounter;
-                        isToday = (dayCounter == currentDay);
-
-                        // Get data for this day
-                        String dateKey = String.format(Locale.US, "%04d-%02d-%02d", currentYear, currentMonth + 1, dayCounter);
-                        int[] data = calendarData.get(dateKey);
-                        if (data != null) {
-                            habitProgress = data[0]; // 0-100
-                            hasEntry = data[1] == 1;
-                        }
+                applyCellGrid(layout, bounds.cellPx, state.cells, state.accent);
+            }
+            layouts[b] = layout;
+        }
+        return layouts;
+    }
 
-                        dayCounter++;
-                    }
+    /**
+     * The complete RemoteViews for one widget: {@code layouts} with its navigation targets.
+     * Set {@code copy} when the layouts are shared with other widgets.
+     */
+    private static RemoteViews forWidget(
+        Context context,
+        GridBounds[] buckets,
+        RemoteViews[] layouts,
+        int appWidgetId,
+        boolean copy
+    ) {
+        PendingIntent prev = navigateIntent(context, appWidgetId, -1);
+        PendingIntent next = navigateIntent(context, appWidgetId, 1);
+        PendingIntent reset = navigateIntent(context, appWidgetId, 0);
+
+        // Combined RemoteViews can't be modified, so each layout gets the targets first
+        RemoteViews[] own = new RemoteViews[layouts.length];
+        for (int i = 0; i < layouts.length; i++) {
+            own[i] = copy ? WidgetTemplates.copy(layouts[i]) : layouts[i];
+            own[i].setOnClickPendingIntent(R.id.calendar_prev, prev);
+            own[i].setOnClickPendingIntent(R.id.calendar_next, next);
+            own[i].setOnClickPendingIntent(R.id.calendar_month, reset);
+        }
+        return combine(buckets, own);
+    }
+
+    /**
+     * Render the months either side of each group's viewed month into {@link #READY}, so a
+     * navigation tap only has to push them. Months whose content hasn't changed since they
+     * were last prerendered are kept as they are.
+     */
+    private static void prerenderNeighbours(
+        Context context,
+        Map<ViewKey, int[]> groups,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        for (Map.Entry<ViewKey, int[]> group : groups.entrySet()) {
+            ViewKey key = group.getKey();
+            int[] appWidgetIds = group.getValue();
+            try {
+                for (int delta = -1; delta <= 1; delta += 2) {
+                    int month = key.month + delta;
+                    MonthPage page = new MonthPage(snapshot, today, month, key.buckets);
 
-                    // Render cell bitmap
-                    android.graphics.Bitmap cellBitmap = CalendarCellRenderer.render(
-                        context, 
-                        cellSizeDp, 
-                        dayNumber, 
-                        habitProgress, 
-                        hasEntry, 
-                        isToday, 
-                        accent
-                    );
-
-                    views.setImageViewBitmap(CELL_IDS[row][col], cellBitmap);
+                    RemoteViews[] layouts = null;
+                    for (int appWidgetId : appWidgetIds) {
+                        if (isReady(appWidgetId, month, page.state)) continue;
+                        if (layouts == null) {
+                            layouts = buildLayouts(context, AppWidgetManager.INVALID_APPWIDGET_ID, page);
+                        }
+                        RemoteViews views = forWidget(context, key.buckets, layouts, appWidgetId, appWidgetIds.length > 1);
+                        putReady(appWidgetId, key.month, month, new ReadyView(views, page.state));
+                    }
                 }
+            } catch (Exception e) {
+                Log.w(TAG, "Could not prerender neighbouring months", e);
             }
+        }
+    }
 
-            // Create intent to open app on tap
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        // Open app on tap
+        views.setOnClickPendingIntent(R.id.widget_calendar, WidgetTemplates.openApp(context, 400, intent -> {}));
+    }
 
-            PendingIntent pendingIntent = PendingIntent.getActivity(
+    // The state last pushed to every widget in the group, or null if they were updated apart
+    private static RenderedState lastRendered(int[] appWidgetIds) {
+        synchronized (LAST_RENDERED) {
+            RenderedState first = LAST_RENDERED.get(appWidgetIds[0]);
+            for (int i = 1; i < appWidgetIds.length; i++) {
+                if (LAST_RENDERED.get(appWidgetIds[i]) != first) return null;
+            }
+            return first;
+        }
+    }
+
+    private static void remember(int[] appWidgetIds, RenderedState state) {
+        synchronized (LAST_RENDERED) {
+            for (int appWidgetId : appWidgetIds) {
+                LAST_RENDERED.put(appWidgetId, state);
+            }
+        }
+    }
+
+    // ========== Month navigation ==========
+
+    /**
+     * Show another month: the adjacent one for a previous/next tap, the current one for a tap
+     * on the month name. Runs on the main thread, so a prerendered month is pushed straight
+     * from here; parsing and drawing only happen on the widget thread afterwards.
+     */
+    private void navigate(Context context, int appWidgetId, int delta) {
+        WidgetDay today = WidgetDay.now();
+        int month = delta == 0
+            ? monthIndex(today.year, today.month)
+            : viewedMonth(context, appWidgetId, today) + delta;
+        setViewedMonth(context, appWidgetId, month, today);
+
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        ReadyView ready = takeReady(appWidgetId, month);
+        if (ready != null) {
+            appWidgetManager.updateAppWidget(appWidgetId, ready.views);
+            remember(new int[]{appWidgetId}, ready.state);
+        }
+
+        // Draws the month if it wasn't ready (or has changed since), then its new neighbours
+        WidgetRefreshExecutor.execute("navigate", goAsync(), () -> {
+            WidgetDay day = WidgetDay.now();
+            updateAll(context, appWidgetManager, new int[]{appWidgetId}, WidgetDataReader.getSnapshot(context, day), day);
+        });
+    }
+
+    private static PendingIntent navigateIntent(Context context, int appWidgetId, int delta) {
+        int requestCode = navigateRequestCode(appWidgetId, delta);
+        synchronized (NAV_INTENTS) {
+            PendingIntent cached = NAV_INTENTS.get(requestCode);
+            if (cached != null) return cached;
+
+            Intent intent = new Intent(context, CalendarWidgetProvider.class);
+            intent.setAction(ACTION_NAVIGATE);
+            intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_ID, appWidgetId);
+            intent.putExtra(EXTRA_DELTA, delta);
+
+            PendingIntent pendingIntent = PendingIntent.getBroadcast(
                 context,
-                400, // unique request code
+                requestCode,
                 intent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
             );
+            NAV_INTENTS.put(requestCode, pendingIntent);
+            return pendingIntent;
+        }
+    }
 
-            views.setOnClickPendingIntent(R.id.widget_calendar, pendingIntent);
+    // Three targets per widget: previous (0), current (1) and next (2)
+    private static int navigateRequestCode(int appWidgetId, int delta) {
+        return NAV_REQUEST_BASE + appWidgetId * 3 + (delta + 1);
+    }
 
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-            Log.d(TAG, "Calendar widget updated successfully");
+    /**
+     * The month each instance shows and that month's data. INPUT_CALENDAR only covers the
+     * current month, so without this a widget navigated elsewhere would not be redrawn.
+     */
+    static int viewedMonthsHash(Context context, int[] appWidgetIds, WidgetSnapshot snapshot, WidgetDay today) {
+        int h = 1;
+        for (int appWidgetId : appWidgetIds) {
+            int month = viewedMonth(context, appWidgetId, today);
+            h = h * 31 + month;
+            h = h * 31 + snapshot.getCalendarMonth(Math.floorDiv(month, 12), Math.floorMod(month, 12)).contentHash();
+        }
+        return h;
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating calendar widget", e);
+    /**
+     * Month shown by a widget as year * 12 + 0-based month: the current month unless navigated
+     * during the current month. A month chosen before the calendar moved on is dropped, so the
+     * midnight refresh on the 1st brings every widget back to the new month.
+     */
+    private static int viewedMonth(Context context, int appWidgetId, WidgetDay today) {
+        int current = monthIndex(today.year, today.month);
+        SharedPreferences prefs = prefs(context);
+        if (prefs.getInt(PREF_SET_IN + appWidgetId, current - 1) != current) return current;
+        return prefs.getInt(PREF_MONTH + appWidgetId, current);
+    }
+
+    private static void setViewedMonth(Context context, int appWidgetId, int month, WidgetDay today) {
+        int current = monthIndex(today.year, today.month);
+        SharedPreferences.Editor editor = prefs(context).edit();
+        if (month == current) {
+            // Follow the calendar again once back on the current month
+            editor.remove(PREF_MONTH + appWidgetId);
+            editor.remove(PREF_SET_IN + appWidgetId);
+        } else {
+            editor.putInt(PREF_MONTH + appWidgetId, month);
+            editor.putInt(PREF_SET_IN + appWidgetId, current);
+        }
+        editor.apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month;
+    }
+
+    private static boolean isReady(int appWidgetId, int month, RenderedState state) {
+        synchronized (READY) {
+            SparseArray<ReadyView> months = READY.get(appWidgetId);
+            ReadyView ready = months != null ? months.get(month) : null;
+            return ready != null && ready.state.sameContent(state);
+        }
+    }
+
+    // Store a prerendered month, dropping any that are no longer next to the viewed month
+    private static void putReady(int appWidgetId, int viewedMonth, int month, ReadyView ready) {
+        synchronized (READY) {
+            SparseArray<ReadyView> months = READY.get(appWidgetId);
+            if (months == null) {
+                months = new SparseArray<>(2);
+                READY.put(appWidgetId, months);
+            }
+            for (int i = months.size() - 1; i >= 0; i--) {
+                if (Math.abs(months.keyAt(i) - viewedMonth) != 1) months.removeAt(i);
+            }
+            months.put(month, ready);
+        }
+    }
+
+    private static ReadyView takeReady(int appWidgetId, int month) {
+        synchronized (READY) {
+            SparseArray<ReadyView> months = READY.get(appWidgetId);
+            if (months == null) return null;
+            ReadyView ready = months.get(month);
+            months.remove(month);
+            return ready;
+        }
+    }
+
+    // 64-bit hash of everything the composite grid is drawn from, apart from its size
+    private static long gridKey(int[] cells, int accent) {
+        long h = accent;
+        for (int cell : cells) {
+            h = h * 1_000_003L + cell;
+        }
+        return h;
+    }
+
+    /**
+     * Encode what each of the 42 grid cells shows into one int:
+     * day (5 bits) | progress (7 bits) | has entry (1 bit) | is today (1 bit). Blank cells are 0.
+     */
+    private static int[] encodeCells(CalendarMonth calendarData, int startOffset, int currentDay) {
+        int[] cells = new int[CalendarGrid.CELLS];
+        for (int i = 0; i < cells.length; i++) {
+            int day = CalendarGrid.dayAt(i, startOffset, calendarData.daysInMonth);
+            if (day == 0) continue;
+
+            cells[i] = day
+                | (calendarData.getProgress(day) << 5)
+                | (calendarData.hasEntry(day) ? 1 << 12 : 0)
+                | (day == currentDay ? 1 << 13 : 0);
+        }
+        return cells;
+    }
+
+    private static void applyCellGrid(RemoteViews views, int cellPx, int[] cells, int accent) {
+        views.setViewVisibility(R.id.calendar_grid_image, View.GONE);
+        views.setViewVisibility(R.id.calendar_grid_cells, View.VISIBLE);
+
+        for (int i = 0; i < cells.length; i++) {
+            applyCell(views, i, cellPx, cells[i], accent);
+        }
+    }
+
+    private static void applyCell(RemoteViews views, int index, int cellPx, int cell, int accent) {
+        // Render cell bitmap
+        android.graphics.Bitmap cellBitmap = CalendarCellRenderer.renderPx(
+            cellPx,
+            cell & 0x1F,
+            (cell >> 5) & 0x7F,
+            (cell & (1 << 12)) != 0,
+            (cell & (1 << 13)) != 0,
+            accent
+        );
+
+        WidgetMetrics.recordBitmap(TAG + " cell", cellBitmap);
+        views.setImageViewBitmap(CELL_IDS[index / CalendarGrid.COLUMNS][index % CalendarGrid.COLUMNS], cellBitmap);
+    }
+
+    /**
+     * Show the month as one bitmap. The grid's pixels depend only on the encoded cells, the
+     * accent and the size, so a fresh process reuses the copy in {@link WidgetBitmapCache}
+     * when those still match and only draws it otherwise. {@code cacheId} is the widget that
+     * owns the cached copy, or INVALID_APPWIDGET_ID to skip the disk cache.
+     */
+    private static void applyCompositeGrid(
+        Context context,
+        int cacheId,
+        RemoteViews views,
+        GridBounds bounds,
+        int bucket,
+        MonthPage page
+    ) {
+        views.setViewVisibility(R.id.calendar_grid_cells, View.GONE);
+        views.setViewVisibility(R.id.calendar_grid_image, View.VISIBLE);
+
+        boolean cached = cacheId != AppWidgetManager.INVALID_APPWIDGET_ID;
+        String slot = GRID_CACHE_SLOT + bucket;
+        long key = gridKey(page.state.cells, page.state.accent);
+        android.graphics.Bitmap grid = cached
+            ? WidgetBitmapCache.get(context, cacheId, slot, key, bounds.widthPx, bounds.heightPx)
+            : null;
+        if (grid == null) {
+            grid = CalendarCellRenderer.renderGrid(
+                bounds.widthPx, bounds.heightPx, page.data, page.startOffset, page.today, page.state.accent);
+            if (cached) WidgetBitmapCache.put(context, cacheId, slot, key, grid);
+        }
+        WidgetMetrics.recordBitmap(TAG + " grid", grid);
+        views.setImageViewBitmap(R.id.calendar_grid_image, grid);
+    }
+
+    /**
+     * The grid area of every size the launcher may show this widget at: the sizes in
+     * OPTION_APPWIDGET_SIZES on API 31+, otherwise the portrait (min width x max height) and
+     * landscape (max width x min height) bounds. When the launcher hasn't reported a size yet
+     * this is a single per-cell layout at {@link #CELL_SIZE_DP}.
+     *
+     * All buckets use the composite grid unless their bitmaps together would exceed the
+     * RemoteViews bitmap memory limit (1.5x the screen area at ARGB_8888), in which case they
+     * all fall back to per-cell bitmaps sized to their own cells.
+     */
+    private static GridBounds[] getGridBuckets(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+
+        List<GridBounds> buckets = new ArrayList<>();
+        if (options != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                ArrayList<SizeF> sizes = getSizes(options);
+                if (sizes != null) {
+                    for (SizeF size : sizes) {
+                        addBucket(buckets, size, size.getWidth(), size.getHeight(), metrics.density);
+                    }
+                }
+            }
+            if (buckets.isEmpty()) {
+                int minWidthDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, 0);
+                int maxWidthDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH, 0);
+                int minHeightDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT, 0);
+                int maxHeightDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT, 0);
+                // Portrait first: with a single bucket it is the one that is shown
+                addBucket(buckets, null, minWidthDp, maxHeightDp, metrics.density);
+                addBucket(buckets, null, maxWidthDp, minHeightDp, metrics.density);
+            }
+        }
+
+        if (buckets.isEmpty()) {
+            int cellPx = Math.max(1, Math.round(CELL_SIZE_DP * metrics.density));
+            return new GridBounds[]{new GridBounds(null, 0, 0, cellPx, false)};
+        }
+
+        long bytes = 0;
+        for (GridBounds bounds : buckets) bytes += 4L * bounds.widthPx * bounds.heightPx;
+        long limit = (long) (1.5 * 4L * metrics.widthPixels * metrics.heightPixels);
+        boolean composite = USE_COMPOSITE_GRID && bytes <= limit;
+
+        GridBounds[] result = new GridBounds[buckets.size()];
+        for (int i = 0; i < result.length; i++) {
+            GridBounds bounds = buckets.get(i);
+            result[i] = new GridBounds(bounds.size, bounds.widthPx, bounds.heightPx, bounds.cellPx, composite);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static ArrayList<SizeF> getSizes(Bundle options) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            return options.getParcelableArrayList(AppWidgetManager.OPTION_APPWIDGET_SIZES, SizeF.class);
+        }
+        return options.getParcelableArrayList(AppWidgetManager.OPTION_APPWIDGET_SIZES);
+    }
+
+    // Add the grid area of a widget size, skipping sizes too small for the grid and duplicates
+    private static void addBucket(List<GridBounds> buckets, SizeF size, float widthDp, float heightDp, float density) {
+        if (widthDp <= GRID_CHROME_WIDTH_DP || heightDp <= GRID_CHROME_HEIGHT_DP) return;
+        int widthPx = Math.round((widthDp - GRID_CHROME_WIDTH_DP) * density);
+        int heightPx = Math.round((heightDp - GRID_CHROME_HEIGHT_DP) * density);
+        if (widthPx <= 0 || heightPx <= 0) return;
+
+        for (GridBounds bounds : buckets) {
+            if (bounds.size == null && bounds.widthPx == widthPx && bounds.heightPx == heightPx) return;
+        }
+        // Cells are square and centred in their slots, as in the layout's centerInside scaling
+        int cellPx = Math.max(1, Math.min(widthPx / CalendarGrid.COLUMNS, heightPx / CalendarGrid.ROWS));
+        buckets.add(new GridBounds(size, widthPx, heightPx, cellPx, true));
+    }
+
+    /**
+     * One RemoteViews for all layouts: mapped by size on API 31+, a landscape/portrait pair
+     * before that, or the single layout itself.
+     */
+    private static RemoteViews combine(GridBounds[] buckets, RemoteViews[] layouts) {
+        if (layouts.length == 1) return layouts[0];
+        // Sizes are only reported on API 31+, where the size-mapped constructor exists
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && buckets[0].size != null) {
+            Map<SizeF, RemoteViews> sized = new HashMap<>();
+            for (int i = 0; i < layouts.length; i++) {
+                sized.put(buckets[i].size, layouts[i]);
+            }
+            return new RemoteViews(sized);
+        }
+        return new RemoteViews(layouts[1], layouts[0]);
+    }
+
+    /** What one group of widgets shows: a month at a set of size buckets. */
+    private static final class ViewKey {
+        final int month; // year * 12 + 0-based month
+        final GridBounds[] buckets;
+
+        ViewKey(int month, GridBounds[] buckets) {
+            this.month = month;
+            this.buckets = buckets;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ViewKey)) return false;
+            ViewKey other = (ViewKey) o;
+            return month == other.month && Arrays.equals(buckets, other.buckets);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * month + Arrays.hashCode(buckets);
+        }
+    }
+
+    /** One month read from the snapshot, with everything needed to draw it. */
+    private static final class MonthPage {
+        final CalendarMonth data;
+        final int startOffset; // week starts on Saturday (grid column 0)
+        final int today;       // day of month to mark as today, 0 outside the current month
+        final RenderedState state;
+
+        MonthPage(WidgetSnapshot snapshot, WidgetDay day, int month, GridBounds[] buckets) {
+            int year = Math.floorDiv(month, 12);
+            int month0 = Math.floorMod(month, 12);
+            boolean current = year == day.year && month0 == day.month;
+
+            data = snapshot.getCalendarMonth(year, month0);
+            startOffset = CalendarGrid.startOffset(year, month0);
+            today = current ? day.dayOfMonth : 0;
+
+            // Short month name, with the year when it isn't this year's; then today's date + day
+            LocalDate first = LocalDate.of(year, month0 + 1, 1);
+            String monthName = day.format(first, year == day.year ? "MMM" : "MMM yyyy").toUpperCase(day.locale);
+            String dateDay = day.format("dd-MM-yyyy EEE").toUpperCase(day.locale);
+
+            state = new RenderedState(
+                WidgetDataReader.CalendarIndex.key(year, month0),
+                snapshot.getThemeColor(0xFF7C3AED),
+                buckets,
+                monthName,
+                dateDay,
+                encodeCells(data, startOffset, today)
+            );
+        }
+    }
+
+    /** A prerendered month for one widget, ready to push. */
+    private static final class ReadyView {
+        final RemoteViews views;
+        final RenderedState state;
+
+        ReadyView(RemoteViews views, RenderedState state) {
+            this.views = views;
+            this.state = state;
+        }
+    }
+
+    /** Pixel bounds of the grid area for one widget size. */
+    private static final class GridBounds {
+        final SizeF size;       // launcher size in dp on API 31+, otherwise null
+        final int widthPx;      // 0 when the size is unknown
+        final int heightPx;
+        final int cellPx;
+        final boolean composite;
+
+        GridBounds(SizeF size, int widthPx, int heightPx, int cellPx, boolean composite) {
+            this.size = size;
+            this.widthPx = widthPx;
+            this.heightPx = heightPx;
+            this.cellPx = cellPx;
+            this.composite = composite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GridBounds)) return false;
+            GridBounds other = (GridBounds) o;
+            return widthPx == other.widthPx
+                && heightPx == other.heightPx
+                && cellPx == other.cellPx
+                && composite == other.composite
+                && (size == null ? other.size == null : size.equals(other.size));
+        }
+
+        @Override
+        public int hashCode() {
+            int h = widthPx;
+            h = 31 * h + heightPx;
+            h = 31 * h + cellPx;
+            h = 31 * h + (composite ? 1 : 0);
+            return 31 * h + (size != null ? size.hashCode() : 0);
+        }
+    }
+
+    /**
+     * What was last pushed to a widget. Anything other than the date text and the cells
+     * differing means a full update.
+     */
+    private static final class RenderedState {
+        final int monthKey;
+        final int accent;
+        final GridBounds[] buckets;
+        final String monthName;
+        final String dateDay;
+        final int[] cells;
+
+        RenderedState(int monthKey, int accent, GridBounds[] buckets,
+                      String monthName, String dateDay, int[] cells) {
+            this.monthKey = monthKey;
+            this.accent = accent;
+            this.buckets = buckets;
+            this.monthName = monthName;
+            this.dateDay = dateDay;
+            this.cells = cells;
+        }
+
+        boolean sameLayout(RenderedState other) {
+            if (monthKey != other.monthKey
+                || accent != other.accent
+                || buckets.length != other.buckets.length
+                || !monthName.equals(other.monthName)) {
+                return false;
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                if (!buckets[i].equals(other.buckets[i])) return false;
+            }
+            return true;
+        }
+
+        boolean sameContent(RenderedState other) {
+            return sameLayout(other) && dateDay.equals(other.dateDay) && Arrays.equals(cells, other.cells);
         }
     }
 }
@@ -6,26 +6,32 @@ import android.content.Intent;
 import android.util.Log;
 
 /**
- * Fired by AlarmManager shortly after midnight (local time).
- * Forces a widget refresh so the "completed today" count resets immediately.
+ * Fired by AlarmManager shortly after midnight (local time), and by the system when the
+ * clock or time zone changes. Enabled only while widgets are placed (WidgetSyncManager).
+ * Forces a widget refresh so the "completed today" count resets immediately, and re-arms
+ * the alarm for the (possibly moved) next midnight.
  */
 public class DailyWidgetRefreshReceiver extends BroadcastReceiver {
   private static final String TAG = "DailyWidgetRefresh";
 
   @Override
   public void onReceive(Context context, Intent intent) {
+    String action = intent != null ? intent.getAction() : null;
+    String trigger = WidgetAlarmScheduler.ACTION_DAILY_WIDGET_REFRESH.equals(action) ? "alarm" : "clock";
+
+    // Schedule the next day (on the widget thread, ahead of the refresh below).
     try {
-      WidgetsUpdater.updateAll(context);
-      Log.d(TAG, "Widgets refreshed for daily reset");
+      WidgetSyncManager.requestSync(context);
     } catch (Exception e) {
-      Log.e(TAG, "Failed to refresh widgets on daily alarm", e);
+      Log.e(TAG, "Failed to reschedule daily widget refresh", e);
     }
 
-    // Schedule the next day.
+    // Refresh on the widget thread; goAsync keeps the receiver alive until it finishes.
     try {
-      WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
+      WidgetRefreshExecutor.requestRefresh(context, trigger, goAsync());
+      Log.d(TAG, "Widget refresh requested (" + action + ")");
     } catch (Exception e) {
-      Log.e(TAG, "Failed to reschedule daily widget refresh", e);
+      Log.e(TAG, "Failed to refresh widgets on " + action, e);
     }
   }
 }
@@ -0,0 +1,241 @@
+package com.krishna.dailyjournal;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Base64;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.krishna.dailyjournal.core.DateKeys;
+import com.krishna.dailyjournal.core.DayFolderMigration;
+import com.krishna.dailyjournal.core.DayLog;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Diary days stored in a {@link DayLog} (files/day-log) instead of one folder per day.
+ *
+ * Each day is one JSON object (content, photos metadata, tags, mood, ...), so reading or
+ * saving a day is a single call here where the folder layout took a file per part. Photo
+ * images stay files in kcsdiary/dd-MM-yyyy/; readDay() can inline them as base64 in the
+ * same call. readAll() returns every day from one sequential pass over the log.
+ *
+ * migrate() moves the kcsdiary/dd-MM-yyyy/ folders written by useFileStorage.ts into the
+ * log once ({@link DayFolderMigration}). Files that cannot be read are set aside as
+ * *.unreadable and reported back, the rest of their day still moves. writeDay() is refused
+ * until the migration has succeeded, so until then the app keeps saving to the folders. The log is compacted when a write leaves it
+ * mostly garbage, and checked again each time the plugin loads.
+ */
+@CapacitorPlugin(name = "DayStorage")
+public class DayStoragePlugin extends Plugin {
+
+    private static final String TAG = "DayStoragePlugin";
+
+    // Relative to the app's files dir, which is Directory.Data on the JS side
+    private static final String DIARY_DIR = "kcsdiary";
+    private static final String LOG_DIR = "day-log";
+    private static final String MIGRATED_MARKER = "migrated";
+
+    private static Handler handler;
+    private static DayLog log;
+    private static boolean migrated;
+
+    private interface Task {
+        void run(DayLog log, File filesDir) throws Exception;
+    }
+
+    @Override
+    public void load() {
+        execute(null, "compact day log", (log, filesDir) -> compactIfNeeded(log));
+    }
+
+    @PluginMethod
+    public void readDay(PluginCall call) {
+        // { dateKey, withPhotos? }
+        final int epochDay = DateKeys.parseDateKey(call.getString("dateKey"));
+        if (!DateKeys.inRange(epochDay)) {
+            call.reject("Invalid dateKey");
+            return;
+        }
+        final boolean withPhotos = call.getBoolean("withPhotos", false);
+
+        execute(call, "read day", (log, filesDir) -> {
+            JSObject result = new JSObject();
+            byte[] payload = log.read(epochDay);
+            if (payload != null) {
+                JSONObject day = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+                if (withPhotos) attachPhotos(filesDir, epochDay, day);
+                result.put("day", day);
+            }
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void writeDay(PluginCall call) {
+        // { dateKey, patch }: top-level fields to set on the day, null removes one
+        final int epochDay = DateKeys.parseDateKey(call.getString("dateKey"));
+        final JSObject patch = call.getObject("patch");
+        if (!DateKeys.inRange(epochDay) || patch == null) {
+            call.reject("Invalid dateKey or patch");
+            return;
+        }
+
+        execute(call, "write day", (log, filesDir) -> {
+            if (!isMigrated(filesDir)) {
+                call.reject("Day folders are not migrated yet");
+                return;
+            }
+            byte[] current = log.read(epochDay);
+            JSONObject day = current != null
+                ? new JSONObject(new String(current, StandardCharsets.UTF_8))
+                : new JSONObject();
+            for (Iterator<String> keys = patch.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                if (patch.isNull(key)) {
+                    day.remove(key);
+                } else {
+                    day.put(key, patch.get(key));
+                }
+            }
+            log.write(epochDay, day.toString().getBytes(StandardCharsets.UTF_8));
+            call.resolve();
+            compactIfNeeded(log);
+        });
+    }
+
+    @PluginMethod
+    public void readAll(PluginCall call) {
+        execute(call, "read all days", (log, filesDir) -> {
+            JSObject days = new JSObject();
+            log.scan((epochDay, payload) -> {
+                try {
+                    days.put(DateKeys.toDateKey(epochDay), new JSONObject(new String(payload, StandardCharsets.UTF_8)));
+                } catch (JSONException e) {
+                    Log.w(TAG, "Skipping unreadable day " + DateKeys.toDateKey(epochDay), e);
+                }
+            });
+            JSObject result = new JSObject();
+            result.put("days", days);
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void migrate(PluginCall call) {
+        execute(call, "migrate day folders", (log, filesDir) -> {
+            int count = 0;
+            JSArray unreadable = new JSArray();
+            if (!isMigrated(filesDir)) {
+                // Throws, writing and deleting nothing, only if the log itself cannot be read
+                DayFolderMigration.Result run = DayFolderMigration.run(log, new File(filesDir, DIARY_DIR));
+                for (String path : run.unreadable) {
+                    Log.w(TAG, "Set aside unreadable " + path);
+                    unreadable.put(path);
+                }
+                count = run.migrated;
+                File marker = new File(new File(filesDir, LOG_DIR), MIGRATED_MARKER);
+                if (!marker.createNewFile() && !marker.exists()) {
+                    throw new IOException("Could not create " + marker);
+                }
+                migrated = true;
+                Log.d(TAG, "Migrated " + count + " day folders");
+            }
+            JSObject result = new JSObject();
+            result.put("migrated", count);
+            result.put("unreadable", unreadable);
+            call.resolve(result);
+        });
+    }
+
+    // ========== Storage thread ==========
+
+    // Log access is serial, and kept off the thread every plugin call is dispatched on
+    private static synchronized Handler handler() {
+        if (handler == null) {
+            HandlerThread thread = new HandlerThread("day-storage", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        return handler;
+    }
+
+    private void execute(PluginCall call, String action, Task task) {
+        final File filesDir = getContext().getFilesDir();
+        handler().post(() -> {
+            try {
+                if (log == null) log = DayLog.open(new File(filesDir, LOG_DIR));
+                task.run(log, filesDir);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to " + action, e);
+                if (call != null) call.reject("Failed to " + action, e);
+            }
+        });
+    }
+
+    private static boolean isMigrated(File filesDir) {
+        if (!migrated) migrated = new File(new File(filesDir, LOG_DIR), MIGRATED_MARKER).exists();
+        return migrated;
+    }
+
+    private static void compactIfNeeded(DayLog log) {
+        if (!log.needsCompaction()) return;
+        long start = System.currentTimeMillis();
+        try {
+            long garbage = log.garbageBytes();
+            log.compact();
+            Log.d(TAG, "Compacted " + garbage + " bytes in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (IOException e) {
+            // The old segments are untouched; the next write tries again
+            Log.e(TAG, "Day log compaction failed", e);
+        }
+    }
+
+    // ========== Photos ==========
+
+    // Adds base64 (and the folder path) to each photo whose image file exists
+    private static void attachPhotos(File filesDir, int epochDay, JSONObject day) throws JSONException {
+        JSONArray photos = day.optJSONArray("photos");
+        if (photos == null) return;
+        String folderName = DayFolderMigration.folderName(epochDay);
+        File folder = new File(new File(filesDir, DIARY_DIR), folderName);
+        for (int i = 0; i < photos.length(); i++) {
+            JSONObject photo = photos.optJSONObject(i);
+            if (photo == null) continue;
+            // Only the name part, so a stored filename cannot point outside the folder
+            String filename = new File(photo.optString("filename", "")).getName();
+            File file = new File(folder, filename);
+            if (filename.isEmpty() || !file.isFile()) continue;
+            try {
+                photo.put("base64", Base64.encodeToString(readBytes(file), Base64.NO_WRAP));
+                photo.put("path", DIARY_DIR + "/" + folderName + "/" + filename);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not read " + file, e);
+            }
+        }
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(0, file.length()));
+            byte[] buffer = new byte[16 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.krishna.dailyjournal;
+
+import android.content.Context;
+import android.util.Log;
+import com.krishna.dailyjournal.core.DiaryStats;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Persistent {@link DiaryStats}: total entries, total words and the current streak.
+ *
+ * The day records are stored in files/diary-stats.bin:
+ *   0 magic "KCDS"   4 version   8 firstEpochDay   12 dayCount   16 day records (i32 LE)...
+ *
+ * A save that stays inside the stored range rewrites only the changed record.
+ */
+final class DiaryStatsEngine {
+    private static final String TAG = "DiaryStatsEngine";
+
+    static final String FILE_NAME = "diary-stats.bin";
+
+    private static final int MAGIC = 0x5344434B; // "KCDS" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static DiaryStatsEngine instance;
+
+    private final File file;
+    private final DiaryStats stats = new DiaryStats();
+
+    private DiaryStatsEngine(File file) {
+        this.file = file;
+    }
+
+    static synchronized DiaryStatsEngine get(Context context) {
+        if (instance == null) {
+            instance = new DiaryStatsEngine(new File(context.getFilesDir(), FILE_NAME));
+            instance.load();
+        }
+        return instance;
+    }
+
+    // ========== Queries ==========
+
+    synchronized boolean isEmpty() {
+        return stats.isEmpty();
+    }
+
+    synchronized int getTotalEntries() {
+        return stats.getTotalEntries();
+    }
+
+    synchronized long getTotalWords() {
+        return stats.getTotalWords();
+    }
+
+    /**
+     * Consecutive entry days ending today, or ending yesterday when today has no entry yet.
+     */
+    synchronized int getStreak(int todayEpochDay) {
+        return stats.getStreak(todayEpochDay);
+    }
+
+    // ========== Updates ==========
+
+    synchronized void applyDay(int epochDay, CharSequence content, boolean hasPhotos) {
+        switch (stats.applyDay(epochDay, content, hasPhotos)) {
+            case DiaryStats.RESIZED: save(); break;
+            case DiaryStats.UPDATED: saveRecord(epochDay); break;
+            default: break;
+        }
+    }
+
+    /**
+     * Replace every stored day, e.g. on first run or after a restore.
+     */
+    synchronized void rebuild(int[] epochDays, CharSequence[] contents, boolean[] hasPhotos) {
+        stats.rebuild(epochDays, contents, hasPhotos);
+        save();
+    }
+
+    // ========== Persistence ==========
+
+    private void load() {
+        if (!file.exists() || file.length() < HEADER_SIZE) return;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            int count = buffer.getInt(12);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || count < 0 || HEADER_SIZE + 4L * count > buffer.capacity()) {
+                Log.w(TAG, "Discarding unrecognised stats file");
+                return;
+            }
+
+            int[] loaded = new int[count];
+            buffer.position(HEADER_SIZE);
+            buffer.asIntBuffer().get(loaded);
+            stats.load(buffer.getInt(8), loaded);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading stats file", e);
+        }
+    }
+
+    private void save() {
+        int count = stats.getDayCount();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * count).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(stats.getFirstEpochDay()).putInt(count);
+        stats.writeRecords(buffer.asIntBuffer());
+
+        File tmp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(buffer.array());
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing stats file", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace stats file");
+            tmp.delete();
+        }
+    }
+
+    // Same range: overwrite just this day's record in place
+    private void saveRecord(int epochDay) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(HEADER_SIZE + 4L * (epochDay - stats.getFirstEpochDay()));
+            raf.writeInt(Integer.reverseBytes(stats.recordAt(epochDay)));
+        } catch (IOException e) {
+            Log.e(TAG, "Error updating stats file", e);
+            save();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.krishna.dailyjournal;
+
+import android.content.Context;
+import android.util.Log;
+import com.krishna.dailyjournal.core.HabitHistory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Persistent {@link HabitHistory}: per-habit completions, streaks and rolling rates.
+ *
+ * Stored in files/habit-index.bin in HabitHistory's format; a file that cannot be read is
+ * discarded and rebuilt by the next full sync from the app.
+ */
+final class HabitIndex {
+    private static final String TAG = "HabitIndex";
+
+    static final String FILE_NAME = "habit-index.bin";
+
+    private static HabitIndex instance;
+
+    private final File file;
+    private final HabitHistory history = new HabitHistory();
+
+    private HabitIndex(File file) {
+        this.file = file;
+    }
+
+    static synchronized HabitIndex get(Context context) {
+        if (instance == null) {
+            instance = new HabitIndex(new File(context.getFilesDir(), FILE_NAME));
+            instance.load();
+        }
+        return instance;
+    }
+
+    // ========== Updates ==========
+
+    synchronized boolean setActiveHabits(Collection<String> ids) {
+        return history.setActiveHabits(ids);
+    }
+
+    synchronized boolean setDay(int epochDay, Collection<String> completedIds) {
+        return history.setDay(epochDay, completedIds);
+    }
+
+    synchronized void clear() {
+        history.clear();
+    }
+
+    // ========== Queries ==========
+
+    synchronized String[] getActiveHabitIds() {
+        return history.getActiveHabitIds();
+    }
+
+    synchronized int getCurrentStreak(String id, int todayEpochDay) {
+        return history.getCurrentStreak(id, todayEpochDay);
+    }
+
+    synchronized int getLongestStreak(String id) {
+        return history.getLongestStreak(id);
+    }
+
+    synchronized float getRate(String id, int todayEpochDay, int windowDays) {
+        return history.getRate(id, todayEpochDay, windowDays);
+    }
+
+    synchronized float getDayFraction(int epochDay) {
+        return history.getDayFraction(epochDay);
+    }
+
+    // ========== Persistence ==========
+
+    private void load() {
+        if (!file.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            history.read(in);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading habit index", e);
+        }
+    }
+
+    synchronized void save() {
+        File tmp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            history.write(out);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing habit index", e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            Log.e(TAG, "Could not replace habit index");
+            tmp.delete();
+        }
+    }
+}
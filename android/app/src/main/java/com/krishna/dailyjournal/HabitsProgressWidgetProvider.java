@@ -1,23 +1,42 @@
 package com.krishna.dailyjournal;
 
-import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
+import android.graphics.Bitmap;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.View;
 import android.widget.RemoteViews;
 
+import java.util.Map;
+
 public class HabitsProgressWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "HabitsProgressWidget";
 
+    // Inputs compared by WidgetsUpdater before redrawing
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME | WidgetSnapshot.INPUT_HABITS;
+
+    @Override
+    public void onEnabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetSyncManager.sync(context);
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
     @Override
@@ -27,33 +46,52 @@ public class HabitsProgressWidgetProvider extends AppWidgetProvider {
         int appWidgetId,
         Bundle newOptions
     ) {
-        updateAppWidget(context, appWidgetManager, appWidgetId);
+        WidgetRefreshExecutor.execute("resize", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, new int[]{appWidgetId}, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+    /** Returns false if any instance failed to update. */
+    public static boolean updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // The card size is the only per-instance input; instances of one size look identical
+        Map<Integer, int[]> groups =
+            WidgetGroups.group(appWidgetIds, appWidgetId -> getCardSizeDp(appWidgetManager, appWidgetId));
+        boolean updated = true;
+        for (Map.Entry<Integer, int[]> group : groups.entrySet()) {
+            updated &= updateGroup(context, appWidgetManager, group.getValue(), group.getKey(), snapshot, today);
         }
+        return updated;
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    private static boolean updateGroup(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        int cardSizeDp,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled so daily reset shows even if app is killed.
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_habits_progress);
+            RemoteViews views = WidgetTemplates.create(
+                context, R.layout.widget_habits_progress, HabitsProgressWidgetProvider::bindTemplate);
 
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
 
             // Read habits data from file-based bridge
-            int completed = WidgetDataReader.getHabitsCompleted(context);
-            int total = WidgetDataReader.getHabitsTotal(context);
+            int completed = snapshot.getHabitsCompleted(today);
+            int total = snapshot.getHabitsTotal();
 
             Log.d(TAG, "Widget data: completed=" + completed + ", total=" + total);
 
             views.setTextViewText(R.id.progress_count, completed + "/" + total);
 
-            int cardSizeDp = getCardSizeDp(appWidgetManager, appWidgetId);
             int ringSizeDp = Math.max(72, cardSizeDp - 24);
             float textSizeSp = Math.max(20f, Math.min(28f, cardSizeDp * 0.18f));
             int strokeDp = Math.max(6, Math.round(ringSizeDp / 14f));
@@ -78,31 +116,38 @@ public class HabitsProgressWidgetProvider extends AppWidgetProvider {
 
             int pct = (total > 0) ? Math.round((completed * 100f) / total) : 0;
             // Always render from 0 with the latest computed value (no animation/spin).
-            views.setImageViewBitmap(
-                R.id.progress_ring_image,
-                RingRenderer.render(context, ringSizeDp, strokeDp, pct, accent)
-            );
-
-            // Create intent to open habits page
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            intent.putExtra("openHabits", true);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                300,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            views.setOnClickPendingIntent(R.id.widget_habits_progress_card, pendingIntent);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            // Both layers are cached masks; the colours come from the views' colour filters.
+            Bitmap track = RingRenderer.renderTrack(context, ringSizeDp, strokeDp);
+            WidgetMetrics.recordBitmap(TAG + " track", track);
+            views.setImageViewBitmap(R.id.progress_ring_track, track);
+            views.setInt(R.id.progress_ring_track, "setColorFilter", RingRenderer.TRACK_COLOR);
+
+            Bitmap arc = RingRenderer.renderArc(context, ringSizeDp, strokeDp, pct);
+            if (arc != null) {
+                WidgetMetrics.recordBitmap(TAG + " arc", arc);
+                views.setImageViewBitmap(R.id.progress_ring_image, arc);
+                views.setInt(R.id.progress_ring_image, "setColorFilter", accent);
+                views.setViewVisibility(R.id.progress_ring_image, View.VISIBLE);
+            } else {
+                views.setViewVisibility(R.id.progress_ring_image, View.GONE);
+            }
+
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
+            return false;
         }
     }
 
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        // Open habits page on tap
+        views.setOnClickPendingIntent(R.id.widget_habits_progress_card, WidgetTemplates.openApp(
+            context, 300, intent -> intent.putExtra("openHabits", true)));
+    }
+
     private static int getCardSizeDp(AppWidgetManager appWidgetManager, int appWidgetId) {
         Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
         int widthDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, 120);
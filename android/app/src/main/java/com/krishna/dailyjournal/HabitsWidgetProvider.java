@@ -1,40 +1,52 @@
 package com.krishna.dailyjournal;
 
-import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 import android.widget.RemoteViews;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class HabitsWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "HabitsWidget";
 
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME
+        | WidgetSnapshot.INPUT_HABITS
+        | WidgetSnapshot.INPUT_DATE;
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+    public static void updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // Nothing drawn depends on the instance, so all of them share one RemoteViews
+        if (appWidgetIds.length > 0) {
+            updateAppWidget(context, appWidgetManager, appWidgetIds, snapshot, today);
         }
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    public static void updateAppWidget(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled for daily reset
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_habits);
+            RemoteViews views = WidgetTemplates.create(context, R.layout.widget_habits, HabitsWidgetProvider::bindTemplate);
 
             // Apply theme accent color from file-based bridge
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
             try {
                 views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
             } catch (Exception e) {
@@ -42,13 +54,12 @@ public class HabitsWidgetProvider extends AppWidgetProvider {
             }
 
             // Set current date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d", Locale.getDefault());
-            String currentDate = dateFormat.format(new Date());
+            String currentDate = today.format("EEEE, MMMM d");
             views.setTextViewText(R.id.habits_date, currentDate);
 
             // Get habits data from file-based bridge
-            int completed = WidgetDataReader.getHabitsCompleted(context);
-            int total = WidgetDataReader.getHabitsTotal(context);
+            int completed = snapshot.getHabitsCompleted(today);
+            int total = snapshot.getHabitsTotal();
             
             Log.d(TAG, "Widget data: completed=" + completed + ", total=" + total);
             
@@ -67,23 +78,17 @@ public class HabitsWidgetProvider extends AppWidgetProvider {
                 Log.w(TAG, "Could not set progress text color", e);
             }
 
-            // Create intent to open habits page
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            intent.putExtra("openHabits", true);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                1,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            views.setOnClickPendingIntent(R.id.widget_habits, pendingIntent);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
         }
     }
+
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        // Open habits page on tap
+        views.setOnClickPendingIntent(R.id.widget_habits, WidgetTemplates.openApp(
+            context, 1, intent -> intent.putExtra("openHabits", true)));
+    }
 }
@@ -0,0 +1,151 @@
+package com.krishna.dailyjournal;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
+import android.util.LruCache;
+
+import com.krishna.dailyjournal.core.YearHeatmap;
+
+/**
+ * Draws the year heatmap from a {@link YearHeatmap} level array into one bitmap, in a single
+ * pass with shared Paints.
+ *
+ * The last bitmap drawn at each pixel size is kept together with the levels it shows. When
+ * the next render is for the same grid (same first day and accent), only the squares whose
+ * level changed are repainted, plus the old and new "today" squares; day to day that is
+ * usually just today's. A new week shifts every column and redraws the whole image.
+ *
+ * Callers get a copy: a RemoteViews holding the bitmap may be parcelled after another
+ * thread has rendered again (e.g. a plugin publish racing the refresh executor).
+ */
+final class HeatmapRenderer {
+    private HeatmapRenderer() {}
+
+    private static final int EMPTY_COLOR = 0xFF2A2A2A;
+    private static final int TODAY_OUTLINE = 0xFFE0E0E0;
+    // Accent alpha per level 1-4, drawn over EMPTY_COLOR
+    private static final int[] LEVEL_ALPHA = {0, 0x55, 0x88, 0xBB, 0xFF};
+
+    // A few widget sizes at most; each entry is one ARGB_8888 bitmap
+    private static final LruCache<Long, Drawn> DRAWN = new LruCache<>(4);
+
+    // Shared drawing state; guarded by the class lock
+    private static final Canvas CANVAS = new Canvas();
+    private static final RectF RECT = new RectF();
+    private static final Paint FILL = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final Paint OUTLINE = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private static final Paint CLEAR = new Paint();
+    private static final int[] COLORS = new int[YearHeatmap.MAX_LEVEL + 1];
+    static {
+        OUTLINE.setStyle(Paint.Style.STROKE);
+        OUTLINE.setColor(TODAY_OUTLINE);
+        CLEAR.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    /** The last bitmap at one size and what it shows. */
+    private static final class Drawn {
+        final Bitmap bitmap;
+        final byte[] levels = new byte[YearHeatmap.CELLS];
+        int firstEpochDay;
+        int accent;
+        int todayIndex;
+
+        Drawn(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+    }
+
+    /**
+     * The heatmap at {@code widthPx} x {@code heightPx}, as a new immutable bitmap.
+     *
+     * @param levels one {@link YearHeatmap} level per cell, FUTURE after today
+     * @param firstEpochDay epoch day of cell 0, as from {@link YearHeatmap#firstEpochDay}
+     * @param todayIndex cell index of today
+     */
+    static synchronized Bitmap render(int widthPx, int heightPx, byte[] levels,
+                                      int firstEpochDay, int todayIndex, int accent) {
+        long key = ((long) widthPx << 32) | heightPx;
+        Drawn drawn = DRAWN.get(key);
+        boolean full = drawn == null || drawn.firstEpochDay != firstEpochDay || drawn.accent != accent;
+        if (drawn == null) {
+            drawn = new Drawn(Bitmap.createBitmap(widthPx, heightPx, Bitmap.Config.ARGB_8888));
+            DRAWN.put(key, drawn);
+        }
+
+        // Square size and gap from the tighter dimension; the grid is centred in the bitmap
+        float slot = Math.min(widthPx / (float) YearHeatmap.WEEKS, heightPx / (float) YearHeatmap.ROWS);
+        float gap = Math.max(1f, slot * 0.18f);
+        float left = (widthPx - slot * YearHeatmap.WEEKS) / 2f;
+        float top = (heightPx - slot * YearHeatmap.ROWS) / 2f;
+        float radius = slot * 0.2f;
+        OUTLINE.setStrokeWidth(Math.max(1f, gap * 0.8f));
+        for (int level = 0; level < COLORS.length; level++) {
+            COLORS[level] = level == 0 ? EMPTY_COLOR : blend(accent, LEVEL_ALPHA[level]);
+        }
+
+        CANVAS.setBitmap(drawn.bitmap);
+        if (full) {
+            drawn.bitmap.eraseColor(0);
+            for (int i = 0; i < YearHeatmap.CELLS; i++) {
+                drawCell(i, levels[i], i == todayIndex, left, top, slot, gap, radius);
+            }
+        } else {
+            int repainted = 0;
+            for (int i = 0; i < YearHeatmap.CELLS; i++) {
+                if (levels[i] != drawn.levels[i] || i == todayIndex || i == drawn.todayIndex) {
+                    clearCell(i, left, top, slot);
+                    drawCell(i, levels[i], i == todayIndex, left, top, slot, gap, radius);
+                    repainted++;
+                }
+            }
+            if (repainted == 0) {
+                CANVAS.setBitmap(null);
+                return drawn.bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            }
+        }
+        CANVAS.setBitmap(null);
+
+        System.arraycopy(levels, 0, drawn.levels, 0, YearHeatmap.CELLS);
+        drawn.firstEpochDay = firstEpochDay;
+        drawn.accent = accent;
+        drawn.todayIndex = todayIndex;
+        return drawn.bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    }
+
+    private static void drawCell(int index, int level, boolean today,
+                                 float left, float top, float slot, float gap, float radius) {
+        if (level == YearHeatmap.FUTURE) return;
+        float x = left + (index / YearHeatmap.ROWS) * slot;
+        float y = top + (index % YearHeatmap.ROWS) * slot;
+        RECT.set(x + gap / 2f, y + gap / 2f, x + slot - gap / 2f, y + slot - gap / 2f);
+
+        FILL.setColor(COLORS[Math.min(level, YearHeatmap.MAX_LEVEL)]);
+        CANVAS.drawRoundRect(RECT, radius, radius, FILL);
+        if (today) {
+            CANVAS.drawRoundRect(RECT, radius, radius, OUTLINE);
+        }
+    }
+
+    // Clear a cell's whole slot, including any antialiased edge of its old outline
+    private static void clearCell(int index, float left, float top, float slot) {
+        float x = left + (index / YearHeatmap.ROWS) * slot;
+        float y = top + (index % YearHeatmap.ROWS) * slot;
+        CANVAS.drawRect(x, y, x + slot, y + slot, CLEAR);
+    }
+
+    // Opaque colour of the accent at the given alpha over EMPTY_COLOR
+    private static int blend(int accent, int alpha) {
+        int r = mix((accent >> 16) & 0xFF, (EMPTY_COLOR >> 16) & 0xFF, alpha);
+        int g = mix((accent >> 8) & 0xFF, (EMPTY_COLOR >> 8) & 0xFF, alpha);
+        int b = mix(accent & 0xFF, EMPTY_COLOR & 0xFF, alpha);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int mix(int over, int under, int alpha) {
+        return (over * alpha + under * (255 - alpha)) / 255;
+    }
+}
@@ -6,6 +6,8 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import com.getcapacitor.BridgeActivity;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 public class MainActivity extends BridgeActivity {
   private static final String TAG = "MainActivity";
@@ -15,17 +17,14 @@ public class MainActivity extends BridgeActivity {
   protected void onCreate(Bundle savedInstanceState) {
     // Set the splash theme before super.onCreate
     setTheme(R.style.AppTheme_NoActionBar);
+    // Local plugins must be registered before the bridge is created in super.onCreate
+    registerPlugin(WidgetBridgePlugin.class);
+    registerPlugin(DayStoragePlugin.class);
     super.onCreate(savedInstanceState);
 
-    // Start native file observer so widgets refresh whenever widget-data.json changes.
-    WidgetSyncManager.ensureStarted(this);
-
-    // Ensure daily reset refresh is scheduled (works even if app is killed).
-    try {
-      WidgetAlarmScheduler.scheduleNextMidnightRefresh(this);
-    } catch (Exception ignored) {
-      // Best-effort; widget updatePeriodMillis still provides eventual refresh.
-    }
+    // Start native file observer and the midnight alarm (if any widgets are placed) so widgets
+    // refresh whenever widget-data.json changes and at the daily reset.
+    WidgetSyncManager.requestSync(this);
 
     // Handle widget click intents
     handleWidgetIntent(getIntent());
@@ -91,11 +90,10 @@ public class MainActivity extends BridgeActivity {
   public void onResume() {
     super.onResume();
 
-    // Refresh all widgets when app comes to foreground
+    // Refresh all widgets when app comes to foreground (on the widget thread, not here)
     try {
-      WidgetsUpdater.updateAll(this);
-      WidgetAlarmScheduler.scheduleNextMidnightRefresh(this);
-      Log.d(TAG, "Widgets refreshed on resume");
+      WidgetRefreshExecutor.requestRefresh(this, "resume");
+      Log.d(TAG, "Widget refresh requested on resume");
     } catch (Exception e) {
       Log.e(TAG, "Failed to refresh widgets on resume", e);
     }
@@ -105,4 +103,19 @@ public class MainActivity extends BridgeActivity {
       executeNavigation();
     }
   }
+
+  /**
+   * Widget pipeline metrics, via
+   * "adb shell dumpsys activity com.krishna.dailyjournal/.MainActivity".
+   */
+  @Override
+  public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+    super.dump(prefix, fd, writer, args);
+    if (args != null && args.length > 0 && "reset-widget-metrics".equals(args[0])) {
+      WidgetMetrics.reset();
+      writer.println("Widget metrics reset");
+      return;
+    }
+    WidgetMetrics.dump(writer);
+  }
 }
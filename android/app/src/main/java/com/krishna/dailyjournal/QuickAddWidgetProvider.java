@@ -4,7 +4,6 @@ import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 import android.widget.RemoteViews;
 
@@ -12,77 +11,66 @@ public class QuickAddWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "QuickAddWidget";
 
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME;
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+    public static void updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // Nothing drawn depends on the instance, so all of them share one RemoteViews
+        if (appWidgetIds.length > 0) {
+            updateAppWidget(context, appWidgetManager, appWidgetIds, snapshot, today);
         }
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    public static void updateAppWidget(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled for daily reset
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_quick_add);
+            RemoteViews views = WidgetTemplates.create(
+                context, R.layout.widget_quick_add, QuickAddWidgetProvider::bindTemplate);
 
             // Apply theme accent color from file-based bridge
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
             try {
                 views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
             } catch (Exception e) {
                 Log.w(TAG, "Could not set accent color", e);
             }
 
-            // Add Note button
-            Intent noteIntent = new Intent(context, MainActivity.class);
-            noteIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            noteIntent.putExtra("openEditor", true);
-            noteIntent.putExtra("action", "note");
-
-            PendingIntent notePendingIntent = PendingIntent.getActivity(
-                context,
-                200,
-                noteIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            views.setOnClickPendingIntent(R.id.btn_add_note, notePendingIntent);
-
-            // Add Voice button
-            Intent voiceIntent = new Intent(context, MainActivity.class);
-            voiceIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            voiceIntent.putExtra("openEditor", true);
-            voiceIntent.putExtra("action", "voice");
-
-            PendingIntent voicePendingIntent = PendingIntent.getActivity(
-                context,
-                201,
-                voiceIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            views.setOnClickPendingIntent(R.id.btn_add_voice, voicePendingIntent);
-
-            // Add Task button
-            Intent taskIntent = new Intent(context, MainActivity.class);
-            taskIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            taskIntent.putExtra("openEditor", true);
-            taskIntent.putExtra("action", "task");
-
-            PendingIntent taskPendingIntent = PendingIntent.getActivity(
-                context,
-                202,
-                taskIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            views.setOnClickPendingIntent(R.id.btn_add_task, taskPendingIntent);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
         }
     }
+
+    // The three buttons never change; only the accent is applied per update
+    private static void bindTemplate(Context context, RemoteViews views) {
+        views.setOnClickPendingIntent(R.id.btn_add_note, openEditor(context, 200, "note"));
+        views.setOnClickPendingIntent(R.id.btn_add_voice, openEditor(context, 201, "voice"));
+        views.setOnClickPendingIntent(R.id.btn_add_task, openEditor(context, 202, "task"));
+    }
+
+    private static PendingIntent openEditor(Context context, int requestCode, String action) {
+        return WidgetTemplates.openApp(context, requestCode, intent -> {
+            intent.putExtra("openEditor", true);
+            intent.putExtra("action", action);
+        });
+    }
 }
@@ -4,37 +4,61 @@ import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 import android.widget.RemoteViews;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class QuickEntryWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "QuickEntryWidget";
 
+    // Only the accent colour comes from the data file; the date line changes daily
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME | WidgetSnapshot.INPUT_DATE;
+
+    @Override
+    public void onEnabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetSyncManager.sync(context);
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
-        }
+    /** Returns false if the update failed and was not pushed. */
+    public static boolean updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // Nothing drawn depends on the instance, so all of them share one RemoteViews
+        return appWidgetIds.length == 0
+            || updateAppWidget(context, appWidgetManager, appWidgetIds, snapshot, today);
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    public static boolean updateAppWidget(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled for daily reset
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_quick_entry);
+            RemoteViews views = WidgetTemplates.create(
+                context, R.layout.widget_quick_entry, QuickEntryWidgetProvider::bindTemplate);
 
             // Apply theme accent color from file-based bridge
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
             try {
                 views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
             } catch (Exception e) {
@@ -42,32 +66,27 @@ public class QuickEntryWidgetProvider extends AppWidgetProvider {
             }
 
             // Set current date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d", Locale.getDefault());
-            String currentDate = dateFormat.format(new Date());
+            String currentDate = today.format("EEEE, MMMM d");
             views.setTextViewText(R.id.widget_date, currentDate);
 
-            // Set prompt text - always show "Write today's diary"
-            views.setTextViewText(R.id.widget_prompt, "Write today's diary");
-
-            // Create intent to open app
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            intent.putExtra("openEditor", true);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                0,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            // Set click listeners
-            views.setOnClickPendingIntent(R.id.widget_quick_entry, pendingIntent);
-            views.setOnClickPendingIntent(R.id.widget_button, pendingIntent);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
+            return false;
         }
     }
+
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        // Set prompt text - always show "Write today's diary"
+        views.setTextViewText(R.id.widget_prompt, "Write today's diary");
+
+        // Open the editor from the card and the button
+        PendingIntent pendingIntent = WidgetTemplates.openApp(
+            context, 0, intent -> intent.putExtra("openEditor", true));
+        views.setOnClickPendingIntent(R.id.widget_quick_entry, pendingIntent);
+        views.setOnClickPendingIntent(R.id.widget_button, pendingIntent);
+    }
 }
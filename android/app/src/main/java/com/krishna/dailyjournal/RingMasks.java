@@ -0,0 +1,102 @@
+package com.krishna.dailyjournal;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.LruCache;
+
+/**
+ * Cached ALPHA_8 masks of the ring shapes shared by the habits ring and the calendar cells:
+ * the full track circle and the progress arc for each whole percent. The shapes depend only
+ * on geometry, so they are drawn once per (size, stroke, inset, progress) and coloured when
+ * composited - by a Paint colour when drawn onto a canvas, or an ImageView colour filter when
+ * shown directly - and an accent change never redraws them.
+ *
+ * Masks are a quarter of the memory of ARGB_8888 bitmaps and are never modified after they
+ * are handed out.
+ */
+final class RingMasks {
+    private RingMasks() {}
+
+    // A few hundred masks at widget sizes; ALPHA_8 at xxhdpi is ~16 KB per 42dp cell
+    private static final int CACHE_BUDGET_BYTES = 2 * 1024 * 1024;
+
+    private static final LruCache<Long, Bitmap> MASKS = new LruCache<Long, Bitmap>(CACHE_BUDGET_BYTES) {
+        @Override
+        protected int sizeOf(Long key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private static final int KIND_TRACK = 0;
+    private static final int KIND_ARC = 1;
+    private static final int KIND_ROUND_ARC = 2;
+
+    // Shared drawing state; guarded by the class lock
+    private static final Canvas CANVAS = new Canvas();
+    private static final RectF OVAL = new RectF();
+    private static final Paint STROKE = new Paint(Paint.ANTI_ALIAS_FLAG);
+    static {
+        STROKE.setStyle(Paint.Style.STROKE);
+        STROKE.setColor(0xFF000000);
+    }
+
+    /**
+     * The full circle.
+     *
+     * @param insetPx distance from the bitmap edge to the centre of the stroke
+     */
+    static Bitmap track(int sizePx, float strokePx, float insetPx) {
+        return get(KIND_TRACK, sizePx, strokePx, insetPx, 100);
+    }
+
+    /**
+     * The progress arc, clockwise from 12 o'clock. Returns null for 0%.
+     */
+    static Bitmap arc(int sizePx, float strokePx, float insetPx, int progressPercent, boolean roundCap) {
+        int clamped = Math.max(0, Math.min(100, progressPercent));
+        if (clamped == 0) return null;
+        return get(roundCap ? KIND_ROUND_ARC : KIND_ARC, sizePx, strokePx, insetPx, clamped);
+    }
+
+    private static synchronized Bitmap get(int kind, int sizePx, float strokePx, float insetPx, int progress) {
+        // Geometry is quantised to quarter pixels so the key fully determines the pixels
+        int stroke = Math.max(1, Math.min(0xFFF, Math.round(strokePx * 4)));
+        int inset = Math.max(0, Math.min(0xFFF, Math.round(insetPx * 4)));
+        long key = cacheKey(kind, sizePx, stroke, inset, progress);
+
+        Bitmap cached = MASKS.get(key);
+        if (cached != null && !cached.isRecycled()) {
+            return cached;
+        }
+
+        Bitmap mask = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ALPHA_8);
+        CANVAS.setBitmap(mask);
+
+        float in = inset / 4f;
+        OVAL.set(in, in, sizePx - in, sizePx - in);
+        STROKE.setStrokeWidth(stroke / 4f);
+        STROKE.setStrokeCap(kind == KIND_ROUND_ARC ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+
+        if (kind == KIND_TRACK) {
+            CANVAS.drawArc(OVAL, 0, 360, false, STROKE);
+        } else {
+            CANVAS.drawArc(OVAL, 270f, (360f * progress) / 100f, false, STROKE);
+        }
+
+        CANVAS.setBitmap(null);
+        MASKS.put(key, mask);
+        return mask;
+    }
+
+    // kind:2 | sizePx:12 | stroke/4:12 | inset/4:12 | progress:7
+    private static long cacheKey(int kind, int sizePx, int stroke, int inset, int progress) {
+        long key = kind & 0x3;
+        key = (key << 12) | Math.min(sizePx, 0xFFF);
+        key = (key << 12) | stroke;
+        key = (key << 12) | inset;
+        key = (key << 7) | (progress & 0x7F);
+        return key;
+    }
+}
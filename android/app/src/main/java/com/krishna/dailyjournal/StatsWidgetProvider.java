@@ -1,10 +1,8 @@
 package com.krishna.dailyjournal;
 
-import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 import android.widget.RemoteViews;
 
@@ -12,26 +10,53 @@ public class StatsWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "StatsWidget";
 
+    // Inputs compared by WidgetsUpdater before redrawing
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME | WidgetSnapshot.INPUT_STATS;
+
+    @Override
+    public void onEnabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetSyncManager.sync(context);
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
-        }
+    /** Returns false if the update failed and was not pushed. */
+    public static boolean updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // Nothing drawn depends on the instance, so all of them share one RemoteViews
+        return appWidgetIds.length == 0
+            || updateAppWidget(context, appWidgetManager, appWidgetIds, snapshot, today);
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    public static boolean updateAppWidget(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled (daily reset + consistency).
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_stats);
+            RemoteViews views = WidgetTemplates.create(context, R.layout.widget_stats, StatsWidgetProvider::bindTemplate);
 
             // Apply theme accent color from file-based bridge
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
             try {
                 views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
             } catch (Exception e) {
@@ -39,16 +64,15 @@ public class StatsWidgetProvider extends AppWidgetProvider {
             }
 
             // Get stats from file-based bridge
-            int entries = WidgetDataReader.getStatsEntries(context);
-            int streak = WidgetDataReader.getStatsStreak(context);
-            int words = WidgetDataReader.getStatsWords(context);
+            int entries = snapshot.getStatsEntries();
+            int streak = snapshot.getStatsStreak();
+            int words = snapshot.getStatsWords();
 
             Log.d(TAG, "Widget data: entries=" + entries + ", streak=" + streak + ", words=" + words);
 
             views.setTextViewText(R.id.stats_entries, String.valueOf(entries));
             views.setTextViewText(R.id.stats_streak, String.valueOf(streak));
             views.setTextViewText(R.id.stats_words, String.valueOf(words));
-            views.setTextViewText(R.id.stats_message, "Tap to view your stats");
 
             // Apply accent color to entries number (matches accent strip)
             try {
@@ -57,23 +81,21 @@ public class StatsWidgetProvider extends AppWidgetProvider {
                 Log.w(TAG, "Could not set entries text color", e);
             }
 
-            // Create intent to open statistics page
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            intent.putExtra("openStatistics", true);
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                2,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            views.setOnClickPendingIntent(R.id.widget_stats, pendingIntent);
-
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
+            return false;
         }
     }
+
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        views.setTextViewText(R.id.stats_message, "Tap to view your stats");
+
+        // Open statistics page on tap
+        views.setOnClickPendingIntent(R.id.widget_stats, WidgetTemplates.openApp(
+            context, 2, intent -> intent.putExtra("openStatistics", true)));
+    }
 }
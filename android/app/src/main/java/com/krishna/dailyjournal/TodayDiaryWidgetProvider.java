@@ -4,17 +4,17 @@ import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 import android.widget.RemoteViews;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class TodayDiaryWidgetProvider extends AppWidgetProvider {
 
     private static final String TAG = "TodayDiaryWidget";
 
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME
+        | WidgetSnapshot.INPUT_TODAY_ENTRY
+        | WidgetSnapshot.INPUT_DATE;
+
     private static final String[] PROMPTS = {
         "What made you smile today?",
         "What are you grateful for?",
@@ -27,24 +27,38 @@ public class TodayDiaryWidgetProvider extends AppWidgetProvider {
 
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        updateAll(context, appWidgetManager, appWidgetIds);
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
     }
 
-    public static void updateAll(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
-        for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+    public static void updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        // Nothing drawn depends on the instance, so all of them share one RemoteViews
+        if (appWidgetIds.length > 0) {
+            updateAppWidget(context, appWidgetManager, appWidgetIds, snapshot, today);
         }
     }
 
-    public static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+    public static void updateAppWidget(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
         try {
-            // Ensure midnight refresh is scheduled for daily reset
-            WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
-
+            // Nothing here is static: the click target carries today's date
             RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_today_diary);
 
             // Apply theme accent color from file-based bridge
-            int accent = WidgetDataReader.getWidgetThemeColor(context, 0xFF7C3AED);
+            int accent = snapshot.getThemeColor(0xFF7C3AED);
             try {
                 views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
             } catch (Exception e) {
@@ -52,37 +66,31 @@ public class TodayDiaryWidgetProvider extends AppWidgetProvider {
             }
 
             // Set current date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, MMMM d, yyyy", Locale.getDefault());
-            String currentDate = dateFormat.format(new Date());
+            String currentDate = today.format("EEEE, MMMM d, yyyy");
             views.setTextViewText(R.id.widget_date, currentDate);
 
             // Prefer today's snippet from file-based bridge, otherwise show rotating prompt
-            String snippet = WidgetDataReader.getTodaySnippet(context);
+            String snippet = snapshot.getTodaySnippet(today);
             if (snippet != null && snippet.trim().length() > 0) {
                 views.setTextViewText(R.id.widget_prompt, snippet);
             } else {
-                int promptIndex = (int) (System.currentTimeMillis() / 86400000) % PROMPTS.length;
+                int promptIndex = Math.floorMod(today.epochDay, PROMPTS.length);
                 views.setTextViewText(R.id.widget_prompt, PROMPTS[promptIndex]);
             }
 
-            // Create intent to open today's diary entry
-            Intent intent = new Intent(context, MainActivity.class);
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            intent.putExtra("openEditor", true);
-            intent.putExtra("date", new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date()));
-
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                100,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
+            // Open today's diary entry; re-issued only when the date changes
+            String dateKey = today.dateKey();
+            PendingIntent pendingIntent = WidgetTemplates.openApp(context, 100, dateKey, intent -> {
+                intent.putExtra("openEditor", true);
+                intent.putExtra("date", dateKey);
+            });
 
             // Set click listeners
             views.setOnClickPendingIntent(R.id.widget_today_diary, pendingIntent);
             views.setOnClickPendingIntent(R.id.widget_write_button, pendingIntent);
 
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
         } catch (Exception e) {
             Log.e(TAG, "Error updating widget", e);
         }
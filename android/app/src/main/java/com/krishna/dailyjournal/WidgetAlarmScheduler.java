@@ -4,49 +4,152 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Build;
+import android.util.Log;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.ZoneId;
 
 /**
  * Schedules a once-per-day alarm shortly after local midnight to force a widget refresh.
  * This makes the daily reset visible even when the app process is not running.
+ *
+ * The armed trigger time is remembered, so asking for the alarm again is free until the
+ * next midnight (or the time zone) actually changes. It is kept in preferences to survive
+ * process restarts, but only trusted while the alarm's PendingIntent still exists: a reboot
+ * or force-stop clears the alarm and the next call re-arms it.
+ *
+ * The alarm is exact and allowed while idle, so the reset shows right at midnight. Users can
+ * opt in to a windowed alarm instead ({@link #setWindowed}), which the system may batch with
+ * other wakeups at the cost of the reset appearing up to ten minutes late.
  */
 public final class WidgetAlarmScheduler {
+  private static final String TAG = "WidgetAlarmScheduler";
+
   public static final String ACTION_DAILY_WIDGET_REFRESH = "com.krishna.dailyjournal.ACTION_DAILY_WIDGET_REFRESH";
 
+  // Length of the opt-in windowed alarm
+  private static final long WINDOW_MS = 10 * 60 * 1000L;
+
+  private static final int REQUEST_CODE = 901;
+  private static final String PREFS = "widget_alarm";
+  private static final String KEY_ARMED_AT = "armedAt";
+  private static final String KEY_WINDOWED = "windowed";
+
+  // Trigger time of the armed alarm, 0 if none; -1 until read for this process
+  private static long armedAt = -1;
+  // The windowed opt-in; null until read for this process
+  private static Boolean windowed;
+
   private WidgetAlarmScheduler() {}
 
-  public static void scheduleNextMidnightRefresh(Context context) {
+  /**
+   * Make sure the alarm for the coming midnight is armed. Costs no AlarmManager call when it
+   * already is.
+   */
+  public static synchronized void scheduleNextMidnightRefresh(Context context) {
     Context app = context.getApplicationContext();
 
-    Calendar cal = Calendar.getInstance();
-    cal.set(Calendar.HOUR_OF_DAY, 0);
-    cal.set(Calendar.MINUTE, 0);
-    cal.set(Calendar.SECOND, 5);
-    cal.set(Calendar.MILLISECOND, 0);
-    cal.add(Calendar.DAY_OF_YEAR, 1);
-
-    long triggerAtMillis = cal.getTimeInMillis();
+    long triggerAtMillis = LocalDate.now()
+      .plusDays(1)
+      .atTime(0, 0, 5)
+      .atZone(ZoneId.systemDefault())
+      .toInstant()
+      .toEpochMilli();
+    if (armedAt(app) == triggerAtMillis) return;
 
-    Intent i = new Intent(app, DailyWidgetRefreshReceiver.class);
-    i.setAction(ACTION_DAILY_WIDGET_REFRESH);
+    AlarmManager am = (AlarmManager) app.getSystemService(Context.ALARM_SERVICE);
+    if (am == null) return;
 
     PendingIntent pi = PendingIntent.getBroadcast(
       app,
-      901,
-      i,
+      REQUEST_CODE,
+      refreshIntent(app),
       PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
     );
 
+    if (!isWindowed(app) && canScheduleExact(am)) {
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+        am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pi);
+      } else {
+        am.setExact(AlarmManager.RTC_WAKEUP, triggerAtMillis, pi);
+      }
+    } else {
+      am.setWindow(AlarmManager.RTC_WAKEUP, triggerAtMillis, WINDOW_MS, pi);
+    }
+
+    remember(app, triggerAtMillis);
+    Log.d(TAG, "Midnight refresh armed for " + triggerAtMillis);
+  }
+
+  /** Cancel the alarm, e.g. when no widgets are placed. */
+  public static synchronized void cancel(Context context) {
+    Context app = context.getApplicationContext();
+    if (armedAt(app) == 0) return;
+
+    PendingIntent pi = PendingIntent.getBroadcast(
+      app,
+      REQUEST_CODE,
+      refreshIntent(app),
+      PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
+    );
     AlarmManager am = (AlarmManager) app.getSystemService(Context.ALARM_SERVICE);
-    if (am == null) return;
+    if (pi != null) {
+      if (am != null) am.cancel(pi);
+      pi.cancel();
+    }
+    remember(app, 0);
+    Log.d(TAG, "Midnight refresh cancelled");
+  }
 
-    // We prefer reliability over exactness; use exact when available.
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-      am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pi);
-    } else {
-      am.setExact(AlarmManager.RTC_WAKEUP, triggerAtMillis, pi);
+  /**
+   * Switch between the exact alarm (the default) and the windowed one. An armed alarm is
+   * cancelled; the next {@link #scheduleNextMidnightRefresh} arms it in the new mode.
+   */
+  public static synchronized void setWindowed(Context context, boolean enabled) {
+    Context app = context.getApplicationContext();
+    if (isWindowed(app) == enabled) return;
+    windowed = enabled;
+    prefs(app).edit().putBoolean(KEY_WINDOWED, enabled).apply();
+    cancel(app);
+  }
+
+  private static boolean isWindowed(Context app) {
+    if (windowed == null) windowed = prefs(app).getBoolean(KEY_WINDOWED, false);
+    return windowed;
+  }
+
+  private static Intent refreshIntent(Context app) {
+    Intent i = new Intent(app, DailyWidgetRefreshReceiver.class);
+    i.setAction(ACTION_DAILY_WIDGET_REFRESH);
+    return i;
+  }
+
+  private static long armedAt(Context app) {
+    if (armedAt < 0) {
+      PendingIntent existing = PendingIntent.getBroadcast(
+        app,
+        REQUEST_CODE,
+        refreshIntent(app),
+        PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
+      );
+      armedAt = existing != null ? prefs(app).getLong(KEY_ARMED_AT, 0) : 0;
     }
+    return armedAt;
+  }
+
+  private static void remember(Context app, long triggerAtMillis) {
+    armedAt = triggerAtMillis;
+    prefs(app).edit().putLong(KEY_ARMED_AT, triggerAtMillis).apply();
+  }
+
+  private static SharedPreferences prefs(Context app) {
+    return app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+  }
+
+  private static boolean canScheduleExact(AlarmManager am) {
+    // Android 12+ only allows exact alarms while the app holds the exact-alarm permission
+    return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || am.canScheduleExactAlarms();
   }
 }
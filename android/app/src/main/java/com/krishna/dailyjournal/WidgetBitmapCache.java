@@ -0,0 +1,154 @@
+package com.krishna.dailyjournal;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Last rendered bitmaps of each widget, kept in cacheDir so a fresh process (midnight alarm,
+ * boot, updatePeriodMillis) can push the same pixels again instead of redrawing them.
+ *
+ * One file per widget and slot, named "&lt;appWidgetId&gt;-&lt;slot&gt;.px": a small header
+ * (magic, width, height, inputs key) followed by the raw ARGB_8888 pixels. An entry is only
+ * used when the caller's key and pixel size match the header exactly. Files are replaced
+ * atomically, capped at {@link #MAX_BYTES} in total (oldest first out) and removed when
+ * their widget is deleted. Call from the widget thread.
+ */
+final class WidgetBitmapCache {
+    private static final String TAG = "WidgetBitmapCache";
+
+    private static final String DIR = "widget-bitmaps";
+    private static final String SUFFIX = ".px";
+    private static final int MAGIC = 0x4B435058; // "KCPX"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8;
+
+    // A couple of full-size calendar grids at xxhdpi (~3.5 MB each)
+    private static final long MAX_BYTES = 12L * 1024 * 1024;
+
+    private WidgetBitmapCache() {}
+
+    /**
+     * The stored bitmap for this widget and slot if it was rendered from the same inputs at
+     * the same pixel size, otherwise null.
+     */
+    static synchronized Bitmap get(Context context, int appWidgetId, String slot,
+                                   long key, int widthPx, int heightPx) {
+        File file = fileFor(context, appWidgetId, slot);
+        if (!file.isFile()) return null;
+
+        long start = WidgetMetrics.begin("bitmap cache read");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long pixelBytes = 4L * widthPx * heightPx;
+            if (channel.size() != HEADER_BYTES + pixelBytes) return null;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC
+                || buffer.getInt() != widthPx
+                || buffer.getInt() != heightPx
+                || buffer.getLong() != key) {
+                return null;
+            }
+
+            Bitmap bitmap = Bitmap.createBitmap(widthPx, heightPx, Bitmap.Config.ARGB_8888);
+            bitmap.copyPixelsFromBuffer(buffer);
+            // Keep recently used entries at the back of the eviction order
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Dropping unreadable cache entry " + file.getName(), e);
+            file.delete();
+            return null;
+        } finally {
+            WidgetMetrics.end("bitmap cache read", start);
+        }
+    }
+
+    /** Store an ARGB_8888 bitmap for this widget and slot, replacing any previous entry. */
+    static synchronized void put(Context context, int appWidgetId, String slot, long key, Bitmap bitmap) {
+        if (bitmap == null || bitmap.getConfig() != Bitmap.Config.ARGB_8888) return;
+        long pixelBytes = bitmap.getByteCount();
+        if (HEADER_BYTES + pixelBytes > MAX_BYTES) return;
+
+        File dir = dir(context);
+        if (!dir.isDirectory() && !dir.mkdirs()) return;
+
+        File file = fileFor(context, appWidgetId, slot);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        long start = WidgetMetrics.begin("bitmap cache write");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + (int) pixelBytes);
+            buffer.putInt(MAGIC).putInt(bitmap.getWidth()).putInt(bitmap.getHeight()).putLong(key);
+            bitmap.copyPixelsToBuffer(buffer);
+            buffer.flip();
+
+            try (FileOutputStream out = new FileOutputStream(tmp);
+                 FileChannel channel = out.getChannel()) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+            trim(dir);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Could not cache bitmap for widget " + appWidgetId, e);
+            tmp.delete();
+        } finally {
+            WidgetMetrics.end("bitmap cache write", start);
+        }
+    }
+
+    /** Delete every entry of the given widgets. */
+    static synchronized void remove(Context context, int[] appWidgetIds) {
+        File[] files = dir(context).listFiles();
+        if (files == null) return;
+        for (int appWidgetId : appWidgetIds) {
+            String prefix = appWidgetId + "-";
+            for (File file : files) {
+                if (file.getName().startsWith(prefix)) file.delete();
+            }
+        }
+    }
+
+    // Delete the least recently written or read entries until the total fits MAX_BYTES
+    private static void trim(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) total += file.length();
+        if (total <= MAX_BYTES) return;
+
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+
+        for (int i = 0; i < order.length && total > MAX_BYTES; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) total -= length;
+        }
+    }
+
+    private static File dir(Context context) {
+        return new File(context.getCacheDir(), DIR);
+    }
+
+    private static File fileFor(Context context, int appWidgetId, String slot) {
+        return new File(dir(context), appWidgetId + "-" + slot + SUFFIX);
+    }
+}
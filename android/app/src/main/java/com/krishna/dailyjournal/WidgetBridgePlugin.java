@@ -0,0 +1,294 @@
+package com.krishna.dailyjournal;
+
+import android.content.Context;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.krishna.dailyjournal.core.DateKeys;
+import com.krishna.dailyjournal.core.WidgetBinaryData;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Pushes widget data straight from JS into the native snapshot.
+ *
+ * publish() takes the same object the JS bridge would write to widget-data.json. On the
+ * widget thread it encodes the payload into the widget-data.bin layout in memory, publishes
+ * that as the current snapshot and refreshes the widgets. The files are written afterwards
+ * for cold starts. While the app is running there is no file round-trip and no observer
+ * debounce between a change and the widget update.
+ *
+ * The stats methods front {@link DiaryStatsEngine}: applyStatsDay() sends one saved day,
+ * rebuildStats() seeds the engine with every day, and all three return the totals.
+ * The habit methods do the same for {@link HabitIndex}.
+ */
+@CapacitorPlugin(name = "WidgetBridge")
+public class WidgetBridgePlugin extends Plugin {
+
+    private static final String TAG = "WidgetBridgePlugin";
+
+    @PluginMethod
+    public void publish(PluginCall call) {
+        final JSObject payload = call.getData();
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("plugin", null, () -> {
+            WidgetBinaryData binary;
+            WidgetSnapshot snapshot;
+            try {
+                binary = WidgetBinaryData.wrap(encode(payload));
+                if (binary == null) {
+                    call.reject("Could not encode widget data");
+                    return;
+                }
+                long start = WidgetMetrics.begin("publish");
+                try {
+                    snapshot = WidgetDataReader.publish(
+                        app,
+                        binary,
+                        payload.optString("todaySnippet", ""),
+                        payload.optString("todayDate", "")
+                    );
+                    WidgetsUpdater.updateAll(app);
+                } finally {
+                    WidgetMetrics.end("publish", start);
+                }
+                call.resolve();
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to publish widget data", e);
+                call.reject("Failed to publish widget data", e);
+                return;
+            }
+
+            long start = WidgetMetrics.begin("persist");
+            try {
+                WidgetDataReader.persist(app, snapshot, binary, payload.toString());
+            } catch (Exception e) {
+                // The in-memory snapshot stays current; only a cold start would see older data.
+                Log.e(TAG, "Failed to persist widget data", e);
+            } finally {
+                WidgetMetrics.end("persist", start);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void applyStatsDay(PluginCall call) {
+        final int epochDay = DateKeys.parseDateKey(call.getString("dateKey"));
+        if (epochDay == Integer.MIN_VALUE) {
+            call.reject("Invalid dateKey");
+            return;
+        }
+        final String content = call.getString("content", "");
+        final boolean hasPhotos = call.getBoolean("hasPhotos", false);
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("stats", null, () -> {
+            DiaryStatsEngine engine = DiaryStatsEngine.get(app);
+            engine.applyDay(epochDay, content, hasPhotos);
+            call.resolve(toResult(engine));
+        });
+    }
+
+    @PluginMethod
+    public void rebuildStats(PluginCall call) {
+        // days: [{ dateKey, content, hasPhotos }]
+        final JSArray days = call.getArray("days");
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("stats", null, () -> {
+            int count = days != null ? days.length() : 0;
+            int[] epochDays = new int[count];
+            CharSequence[] contents = new CharSequence[count];
+            boolean[] hasPhotos = new boolean[count];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                JSONObject day = days.optJSONObject(i);
+                int epochDay = day != null ? DateKeys.parseDateKey(day.optString("dateKey", "")) : Integer.MIN_VALUE;
+                if (epochDay == Integer.MIN_VALUE) continue;
+                epochDays[n] = epochDay;
+                contents[n] = day.optString("content", "");
+                hasPhotos[n] = day.optBoolean("hasPhotos", false);
+                n++;
+            }
+            if (n < count) {
+                epochDays = Arrays.copyOf(epochDays, n);
+                contents = Arrays.copyOf(contents, n);
+                hasPhotos = Arrays.copyOf(hasPhotos, n);
+            }
+
+            DiaryStatsEngine engine = DiaryStatsEngine.get(app);
+            engine.rebuild(epochDays, contents, hasPhotos);
+            call.resolve(toResult(engine));
+        });
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        WidgetRefreshExecutor.execute("stats", null, () -> call.resolve(toResult(DiaryStatsEngine.get(app))));
+    }
+
+    @PluginMethod
+    public void setMidnightRefreshMode(PluginCall call) {
+        // { windowed }: opt in to the batched midnight alarm instead of the exact one
+        final boolean windowed = call.getBoolean("windowed", false);
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("alarm mode", null, () -> {
+            WidgetAlarmScheduler.setWindowed(app, windowed);
+            WidgetSyncManager.sync(app);
+            call.resolve();
+        });
+    }
+
+    @PluginMethod
+    public void applyHabitDay(PluginCall call) {
+        // { habits: string[], dateKey, completed: string[] }
+        final List<String> active = toStrings(call.getArray("habits"));
+        final int epochDay = DateKeys.parseDateKey(call.getString("dateKey", ""));
+        final List<String> completed = toStrings(call.getArray("completed"));
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("habits", null, () -> {
+            HabitIndex index = HabitIndex.get(app);
+            boolean changed = index.setActiveHabits(active);
+            if (epochDay != Integer.MIN_VALUE) {
+                changed |= index.setDay(epochDay, completed);
+            }
+            if (changed) index.save();
+            call.resolve(toResult(index));
+        });
+    }
+
+    @PluginMethod
+    public void rebuildHabits(PluginCall call) {
+        // { habits: string[], days: [{ dateKey, completed: string[] }] }
+        final List<String> active = toStrings(call.getArray("habits"));
+        final JSArray days = call.getArray("days");
+        final Context app = getContext().getApplicationContext();
+
+        WidgetRefreshExecutor.execute("habits", null, () -> {
+            HabitIndex index = HabitIndex.get(app);
+            index.clear();
+            index.setActiveHabits(active);
+            for (int i = 0, n = days != null ? days.length() : 0; i < n; i++) {
+                JSONObject day = days.optJSONObject(i);
+                if (day == null) continue;
+                int epochDay = DateKeys.parseDateKey(day.optString("dateKey", ""));
+                if (epochDay == Integer.MIN_VALUE) continue;
+                index.setDay(epochDay, toStrings(day.optJSONArray("completed")));
+            }
+            index.save();
+            call.resolve(toResult(index));
+        });
+    }
+
+    @PluginMethod
+    public void getHabitStats(PluginCall call) {
+        final Context app = getContext().getApplicationContext();
+        WidgetRefreshExecutor.execute("habits", null, () -> call.resolve(toResult(HabitIndex.get(app))));
+    }
+
+    private static JSObject toResult(HabitIndex index) {
+        int today = WidgetDay.now().epochDay;
+        JSArray habits = new JSArray();
+        for (String id : index.getActiveHabitIds()) {
+            JSObject habit = new JSObject();
+            habit.put("id", id);
+            habit.put("currentStreak", index.getCurrentStreak(id, today));
+            habit.put("longestStreak", index.getLongestStreak(id));
+            habit.put("rate7", index.getRate(id, today, 7));
+            habit.put("rate30", index.getRate(id, today, 30));
+            habits.put(habit);
+        }
+        JSObject result = new JSObject();
+        result.put("todayFraction", index.getDayFraction(today));
+        result.put("habits", habits);
+        return result;
+    }
+
+    private static List<String> toStrings(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0, n = array != null ? array.length() : 0; i < n; i++) {
+            String value = array.optString(i);
+            if (value != null && !value.isEmpty()) values.add(value);
+        }
+        return values;
+    }
+
+    private static JSObject toResult(DiaryStatsEngine engine) {
+        JSObject result = new JSObject();
+        result.put("seeded", !engine.isEmpty());
+        result.put("entries", engine.getTotalEntries());
+        result.put("words", engine.getTotalWords());
+        result.put("streak", engine.getStreak(WidgetDay.now().epochDay));
+        return result;
+    }
+
+    private static ByteBuffer encode(JSONObject payload) {
+        // calendarDays: dateKey (YYYY-MM-DD) -> { habitProgress, hasEntry }
+        JSONObject calendarDays = payload.optJSONObject("calendarDays");
+        int firstDay = Integer.MAX_VALUE;
+        int lastDay = Integer.MIN_VALUE;
+        if (calendarDays != null) {
+            for (Iterator<String> keys = calendarDays.keys(); keys.hasNext(); ) {
+                int epochDay = DateKeys.parseDateKey(keys.next());
+                if (!DateKeys.inRange(epochDay)) continue;
+                firstDay = Math.min(firstDay, epochDay);
+                lastDay = Math.max(lastDay, epochDay);
+            }
+        }
+
+        byte[] days = new byte[firstDay <= lastDay ? lastDay - firstDay + 1 : 0];
+        if (days.length > 0) {
+            for (Iterator<String> keys = calendarDays.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                int epochDay = DateKeys.parseDateKey(key);
+                JSONObject day = calendarDays.optJSONObject(key);
+                if (!DateKeys.inRange(epochDay) || day == null) continue;
+                days[epochDay - firstDay] = WidgetBinaryData.record(
+                    day.optInt("habitProgress", 0),
+                    day.optBoolean("hasEntry", false)
+                );
+            }
+        }
+
+        boolean hasThemeColor = false;
+        int themeColor = 0;
+        String themeHex = payload.optString("themeColor", "");
+        if (!themeHex.isEmpty()) {
+            try {
+                themeColor = android.graphics.Color.parseColor(themeHex);
+                hasThemeColor = true;
+            } catch (Exception e) {
+                Log.w(TAG, "Invalid theme color: " + themeHex);
+            }
+        }
+
+        int habitsDay = DateKeys.parseDateKey(payload.optString("habitsDate", ""));
+
+        return WidgetBinaryData.encode(
+            payload.optLong("sequence", 0L),
+            payload.optInt("habitsCompleted", 0),
+            payload.optInt("habitsTotal", 0),
+            habitsDay == Integer.MIN_VALUE ? -1 : habitsDay,
+            payload.optInt("statsEntries", 0),
+            payload.optInt("statsStreak", 0),
+            payload.optInt("statsWords", 0),
+            hasThemeColor,
+            themeColor,
+            days.length > 0 ? firstDay : 0,
+            days
+        );
+    }
+}
@@ -2,191 +2,315 @@ package com.krishna.dailyjournal;
 
 import android.content.Context;
 import android.util.Log;
-import org.json.JSONObject;
+import android.util.SparseArray;
+import com.krishna.dailyjournal.core.CalendarMonth;
+import com.krishna.dailyjournal.core.WidgetBinaryData;
+import com.krishna.dailyjournal.core.WidgetData;
+import com.krishna.dailyjournal.core.WidgetDataParser;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Locale;
-import java.util.Map;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Reads widget data from JSON file written by the Capacitor/React app.
  * This replaces the custom Capacitor plugin approach with a file-based bridge.
+ *
+ * Parsing itself lives in the widget-core module ({@link WidgetDataParser}), which streams
+ * the file and materialises only the requested month of calendarDays. When a matching
+ * widget-data.bin ({@link WidgetBinaryData}) sits next to it, stats, habits, theme and
+ * calendar days come from the mapped binary and the JSON is read only up to the text fields
+ * at its head.
  */
 public final class WidgetDataReader {
     private WidgetDataReader() {}
 
     private static final String TAG = "WidgetDataReader";
-    private static final String WIDGET_DATA_FILE = "widget-data.json";
+    static final String WIDGET_DATA_FILE = "widget-data.json";
+    // Dedicated directory for the bridge files, so the file observer sees nothing else
+    static final String BRIDGE_DIR = "widget-bridge";
+
+    static File getBridgeDir(Context context) {
+        return new File(context.getFilesDir(), BRIDGE_DIR);
+    }
 
     /**
      * Get the widget data file path in app's internal files directory.
+     * Falls back to the pre-bridge-directory location until the app has written the new one.
      */
     private static File getWidgetDataFile(Context context) {
+        File file = new File(getBridgeDir(context), WIDGET_DATA_FILE);
+        if (file.exists()) return file;
         return new File(context.getFilesDir(), WIDGET_DATA_FILE);
     }
 
+    // The binary always sits next to the JSON it was written with
+    private static File getWidgetBinaryFile(File dataFile) {
+        return new File(dataFile.getParentFile(), WidgetBinaryData.FILE_NAME);
+    }
+
+    // ========== Snapshot ==========
+
+    private static WidgetSnapshot cachedSnapshot;
+    // Set by WidgetBridgePlugin; wins over the files until it has been persisted
+    private static WidgetSnapshot publishedSnapshot;
+
     /**
-     * Read and parse the widget data JSON file.
-     * Returns null if file doesn't exist or can't be parsed.
+     * Get the parsed widget data, re-reading the file only when its mtime or size changed
+     * (or the current month rolled over).
+     * Never returns null; a missing or unreadable file yields an empty snapshot.
      */
-    public static JSONObject readWidgetData(Context context) {
+    static synchronized WidgetSnapshot getSnapshot(Context context, WidgetDay today) {
+        if (publishedSnapshot != null) return publishedSnapshot;
+
         File file = getWidgetDataFile(context);
         if (!file.exists()) {
             Log.d(TAG, "Widget data file not found: " + file.getAbsolutePath());
-            return null;
+            cachedSnapshot = null;
+            return WidgetSnapshot.EMPTY;
         }
 
-        try {
-            StringBuilder content = new StringBuilder();
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
-            reader.close();
+        int year = today.year;
+        int month = today.month;
+
+        long modified = file.lastModified();
+        long size = file.length();
+        WidgetSnapshot cached = cachedSnapshot;
+        if (cached != null
+            && cached.fileModified == modified
+            && cached.fileSize == size
+            && cached.calendarYear == year
+            && cached.calendarMonth == month) {
+            return cached;
+        }
 
-            return new JSONObject(content.toString());
+        long start = WidgetMetrics.begin("read");
+        try {
+            WidgetBinaryData binary = WidgetBinaryData.open(getWidgetBinaryFile(file));
+            cachedSnapshot = parseSnapshot(file, binary, modified, size, year, month);
+            return cachedSnapshot;
         } catch (Exception e) {
             Log.e(TAG, "Error reading widget data file", e);
-            return null;
+            cachedSnapshot = null;
+            return WidgetSnapshot.EMPTY;
+        } finally {
+            WidgetMetrics.end("read", start);
+            WidgetMetrics.recordBytes("read file", size);
         }
     }
 
-    // ========== Habits Progress ==========
+    private static WidgetSnapshot parseSnapshot(
+        File file,
+        WidgetBinaryData binary,
+        long modified,
+        long size,
+        int year,
+        int month
+    ) throws IOException {
+        WidgetData data;
+        try (Reader reader = openReader(file)) {
+            data = WidgetDataParser.parse(reader, binary, year, month);
+        }
+
+        if (data.isBackedBy(binary)) {
+            return fromBinary(file, binary, modified, size, data.todaySnippet, data.todayDate, year, month);
+        }
 
-    private static String getHabitsDate(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return "";
-        return data.optString("habitsDate", "");
+        boolean hasThemeColor = false;
+        int themeColor = 0;
+        if (data.themeColor != null && !data.themeColor.isEmpty()) {
+            try {
+                themeColor = android.graphics.Color.parseColor(data.themeColor);
+                hasThemeColor = true;
+            } catch (Exception e) {
+                Log.w(TAG, "Invalid theme color: " + data.themeColor);
+            }
+        }
+
+        return new WidgetSnapshot(
+            file,
+            null,
+            modified,
+            size,
+            data.habitsCompleted,
+            data.habitsTotal,
+            data.habitsDate,
+            data.todaySnippet,
+            data.todayDate,
+            data.statsEntries,
+            data.statsStreak,
+            data.statsWords,
+            hasThemeColor,
+            themeColor,
+            data.calendarMonth
+        );
     }
 
-    private static String getTodayKey() {
-        // Local date key YYYY-MM-DD
-        java.util.Calendar c = java.util.Calendar.getInstance();
-        int y = c.get(java.util.Calendar.YEAR);
-        int m = c.get(java.util.Calendar.MONTH) + 1;
-        int d = c.get(java.util.Calendar.DAY_OF_MONTH);
-        return String.format(java.util.Locale.US, "%04d-%02d-%02d", y, m, d);
+    // ========== In-memory publish ==========
+
+    /**
+     * Make data pushed by {@link WidgetBridgePlugin} the current snapshot without touching disk.
+     * It is served until {@link #persist} has written it out.
+     */
+    static synchronized WidgetSnapshot publish(
+        Context context,
+        WidgetBinaryData binary,
+        String todaySnippet,
+        String todayDate
+    ) {
+        WidgetDay today = WidgetDay.now();
+        publishedSnapshot = fromBinary(
+            new File(getBridgeDir(context), WIDGET_DATA_FILE),
+            binary,
+            -1L,
+            -1L,
+            todaySnippet,
+            todayDate,
+            today.year,
+            today.month
+        );
+        return publishedSnapshot;
     }
 
-    public static int getHabitsCompleted(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return 0;
+    /**
+     * Write a published snapshot to the bridge directory for cold starts (binary first, like
+     * the JS bridge), then hand over to the file-backed cache. Each file is written to a
+     * temporary name and renamed, so the observer and readers only ever see complete files.
+     */
+    static void persist(Context context, WidgetSnapshot published, WidgetBinaryData binary, String json)
+        throws IOException {
+        File dir = getBridgeDir(context);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir.getAbsolutePath());
+        }
 
-        int completed = data.optInt("habitsCompleted", 0);
-        String date = getHabitsDate(context);
-        if (date == null || date.isEmpty()) return completed;
+        File binFile = new File(dir, WidgetBinaryData.FILE_NAME);
+        File binTmp = new File(dir, WidgetBinaryData.FILE_NAME + ".tmp");
+        binary.writeTo(binTmp);
+        renameOver(binTmp, binFile);
 
-        // Daily reset: if the stored progress is not for today, completed becomes 0.
-        if (!getTodayKey().equals(date)) return 0;
-        return completed;
-    }
+        File jsonFile = new File(dir, WIDGET_DATA_FILE);
+        File jsonTmp = new File(dir, WIDGET_DATA_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(jsonTmp)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        renameOver(jsonTmp, jsonFile);
 
-    public static int getHabitsTotal(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return 0;
-        return data.optInt("habitsTotal", 0);
-    }
+        synchronized (WidgetDataReader.class) {
+            // A newer publish may have arrived meanwhile; it will persist itself.
+            if (publishedSnapshot != published) return;
 
-    // ========== Today Snippet ==========
+            cachedSnapshot = fromBinary(
+                jsonFile,
+                binary,
+                jsonFile.lastModified(),
+                jsonFile.length(),
+                published.getTodaySnippet(),
+                published.getTodayDate(),
+                published.calendarYear,
+                published.calendarMonth
+            );
+            publishedSnapshot = null;
+        }
+    }
 
-    public static String getTodaySnippet(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return "";
-        return data.optString("todaySnippet", "");
+    private static void renameOver(File from, File to) throws IOException {
+        if (!from.renameTo(to)) {
+            from.delete();
+            throw new IOException("Could not replace " + to.getAbsolutePath());
+        }
     }
 
-    public static String getTodayDate(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return "";
-        return data.optString("todayDate", "");
+    // Everything but the two text fields comes from the binary.
+    private static WidgetSnapshot fromBinary(
+        File file,
+        WidgetBinaryData binary,
+        long modified,
+        long size,
+        String todaySnippet,
+        String todayDate,
+        int year,
+        int month
+    ) {
+        return new WidgetSnapshot(
+            file,
+            binary,
+            modified,
+            size,
+            binary.getHabitsCompleted(),
+            binary.getHabitsTotal(),
+            binary.getHabitsDate(),
+            todaySnippet,
+            todayDate,
+            binary.getStatsEntries(),
+            binary.getStatsStreak(),
+            binary.getStatsWords(),
+            binary.hasThemeColor(),
+            binary.getThemeColor(),
+            WidgetDataParser.readCalendarMonth(binary, year, month)
+        );
     }
 
-    // ========== Stats ==========
+    // ========== Calendar Widget Data ==========
 
-    public static int getStatsEntries(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return 0;
-        return data.optInt("statsEntries", 0);
-    }
+    /**
+     * Months of calendar data keyed by (year, month) packed into one int.
+     */
+    public static final class CalendarIndex {
+        private final SparseArray<CalendarMonth> months = new SparseArray<>();
 
-    public static int getStatsStreak(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return 0;
-        return data.optInt("statsStreak", 0);
-    }
+        static int key(int year, int month) {
+            return year * 12 + month;
+        }
 
-    public static int getStatsWords(Context context) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return 0;
-        return data.optInt("statsWords", 0);
+        public synchronized CalendarMonth get(int year, int month) {
+            return months.get(key(year, month));
+        }
+
+        synchronized void put(CalendarMonth calendarMonth) {
+            months.put(key(calendarMonth.year, calendarMonth.month), calendarMonth);
+        }
     }
 
-    // ========== Theme Color ==========
+    /**
+     * Stream the widget data file and return only the requested month's calendar days.
+     */
+    static CalendarMonth readCalendarMonth(File file, int year, int month) {
+        if (file == null || !file.exists()) return new CalendarMonth(year, month);
 
-    public static int getWidgetThemeColor(Context context, int fallback) {
-        JSONObject data = readWidgetData(context);
-        if (data == null) return fallback;
-        
-        String hex = data.optString("themeColor", null);
-        if (hex == null || hex.isEmpty()) return fallback;
-        
-        try {
-            return android.graphics.Color.parseColor(hex);
+        try (Reader reader = openReader(file)) {
+            return WidgetDataParser.readCalendarMonth(reader, year, month);
         } catch (Exception e) {
-            return fallback;
+            Log.e(TAG, "Error getting calendar data", e);
         }
+        return new CalendarMonth(year, month);
     }
 
-    // ========== Calendar Widget Data ==========
-
     /**
-     * Get calendar data for a specific month.
-     * Returns a map of dateKey (YYYY-MM-DD) to int[2] where:
-     *   [0] = habit progress percentage (0-100)
-     *   [1] = has entry (0 or 1)
+     * Stream the widget data file once and return the calendar days from {@code firstEpochDay}
+     * on as day records ({@link WidgetDataParser#readCalendarDays}); all zero if unreadable.
      */
-    public static Map<String, int[]> getCalendarData(Context context, int year, int month) {
-        Map<String, int[]> result = new HashMap<>();
-        
-        JSONObject data = readWidgetData(context);
-        if (data == null) return result;
-
-        try {
-            // Get calendarDays object
-            JSONObject calendarDays = data.optJSONObject("calendarDays");
-            if (calendarDays == null) {
-                Log.d(TAG, "No calendarDays data found");
-                return result;
-            }
-
-            // Filter for the requested month
-            String monthPrefix = String.format(Locale.US, "%04d-%02d-", year, month + 1);
-            
-            Iterator<String> keys = calendarDays.keys();
-            while (keys.hasNext()) {
-                String dateKey = keys.next();
-                if (dateKey.startsWith(monthPrefix)) {
-                    try {
-                        JSONObject dayData = calendarDays.getJSONObject(dateKey);
-                        int habitProgress = dayData.optInt("habitProgress", 0);
-                        int hasEntry = dayData.optBoolean("hasEntry", false) ? 1 : 0;
-                        result.put(dateKey, new int[]{habitProgress, hasEntry});
-                    } catch (Exception e) {
-                        Log.w(TAG, "Error parsing day data for " + dateKey, e);
-                    }
-                }
-            }
-
-            Log.d(TAG, "Loaded calendar data for " + year + "-" + (month + 1) + ": " + result.size() + " days");
+    static byte[] readCalendarDays(File file, int firstEpochDay, int dayCount) {
+        byte[] records = new byte[dayCount];
+        if (file == null || !file.exists()) return records;
 
+        try (Reader reader = openReader(file)) {
+            WidgetDataParser.readCalendarDays(reader, firstEpochDay, records);
         } catch (Exception e) {
             Log.e(TAG, "Error getting calendar data", e);
+            Arrays.fill(records, (byte) 0);
         }
+        return records;
+    }
 
-        return result;
+    private static Reader openReader(File file) throws IOException {
+        return new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)
+        );
     }
 }
@@ -0,0 +1,77 @@
+package com.krishna.dailyjournal;
+
+import com.krishna.dailyjournal.core.DateKeys;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The local date a widget refresh renders for. Taken once per refresh by
+ * {@link WidgetsUpdater} (or per system callback) and passed down, so every provider agrees
+ * on "today" and none of them builds its own Calendar or formatter.
+ *
+ * Day comparisons use the packed yyyymmdd {@link #key}; text goes through formatters
+ * cached per locale.
+ */
+final class WidgetDay {
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new HashMap<>();
+    private static Locale formattersLocale;
+
+    final LocalDate date;
+    final int epochDay;
+    /** Packed yyyymmdd, comparable with {@link DateKeys#parsePackedKey}. */
+    final int key;
+    final int year;
+    final int month; // 0-based, like java.util.Calendar
+    final int dayOfMonth;
+    final Locale locale;
+
+    private WidgetDay(LocalDate date, Locale locale) {
+        this.date = date;
+        this.epochDay = (int) date.toEpochDay();
+        this.year = date.getYear();
+        this.month = date.getMonthValue() - 1;
+        this.dayOfMonth = date.getDayOfMonth();
+        this.key = DateKeys.packedKey(year, month + 1, dayOfMonth);
+        this.locale = locale;
+    }
+
+    static WidgetDay now() {
+        return new WidgetDay(LocalDate.now(), Locale.getDefault());
+    }
+
+    /** Whether a YYYY-MM-DD key from the widget data names this day. */
+    boolean is(int packedKey) {
+        return packedKey == key;
+    }
+
+    /** This day's YYYY-MM-DD key, as the web app writes it. */
+    String dateKey() {
+        return DateKeys.toDateKey(epochDay);
+    }
+
+    /** Format with a {@link DateTimeFormatter} pattern in this day's locale. */
+    String format(String pattern) {
+        return formatter(pattern, locale).format(date);
+    }
+
+    /** Format another date (e.g. the first of a month) in this day's locale. */
+    String format(LocalDate other, String pattern) {
+        return formatter(pattern, locale).format(other);
+    }
+
+    private static synchronized DateTimeFormatter formatter(String pattern, Locale locale) {
+        if (!locale.equals(formattersLocale)) {
+            FORMATTERS.clear();
+            formattersLocale = locale;
+        }
+        DateTimeFormatter formatter = FORMATTERS.get(pattern);
+        if (formatter == null) {
+            formatter = DateTimeFormatter.ofPattern(pattern, locale);
+            FORMATTERS.put(pattern, formatter);
+        }
+        return formatter;
+    }
+}
@@ -0,0 +1,47 @@
+package com.krishna.dailyjournal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups widget instances that would render identically, so a provider builds one
+ * RemoteViews per group and pushes it with {@code AppWidgetManager.updateAppWidget(int[], ...)}.
+ * Work then scales with the number of distinct configurations (size bucket, theme) rather
+ * than the number of placed instances.
+ */
+final class WidgetGroups {
+    private WidgetGroups() {}
+
+    /** The render key of one instance; keys must implement equals and hashCode. */
+    interface KeyFunction<K> {
+        K keyOf(int appWidgetId);
+    }
+
+    /**
+     * Ids grouped by {@code keyFunction}, in order of each group's first id. Ids within a
+     * group keep their original order.
+     */
+    static <K> Map<K, int[]> group(int[] appWidgetIds, KeyFunction<K> keyFunction) {
+        Map<K, List<Integer>> lists = new LinkedHashMap<>();
+        for (int appWidgetId : appWidgetIds) {
+            K key = keyFunction.keyOf(appWidgetId);
+            List<Integer> ids = lists.get(key);
+            if (ids == null) {
+                ids = new ArrayList<>();
+                lists.put(key, ids);
+            }
+            ids.add(appWidgetId);
+        }
+
+        Map<K, int[]> groups = new LinkedHashMap<>();
+        for (Map.Entry<K, List<Integer>> entry : lists.entrySet()) {
+            List<Integer> ids = entry.getValue();
+            int[] array = new int[ids.size()];
+            for (int i = 0; i < array.length; i++) array[i] = ids.get(i);
+            groups.put(entry.getKey(), array);
+        }
+        return groups;
+    }
+}
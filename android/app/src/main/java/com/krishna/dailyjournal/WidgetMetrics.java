@@ -0,0 +1,173 @@
+package com.krishna.dailyjournal;
+
+import android.graphics.Bitmap;
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.widget.RemoteViews;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory instrumentation for the widget pipeline.
+ *
+ * Every refresh runs under a trigger (observer, resume, alarm, boot, plugin, onUpdate, ...)
+ * set by {@link WidgetRefreshExecutor}. Stages record into rolling histograms keyed by
+ * "trigger/stage": snapshot read and parse time, per-provider render time, bitmap bytes,
+ * RemoteViews parcel size and end-to-end latency from the request (for the observer, the
+ * completed file write) to the last updateAppWidget. Timed stages also emit
+ * {@link Trace} sections for systrace/Perfetto.
+ *
+ * Parcel sizes need an extra marshalling pass, so they are only measured when
+ * "adb shell setprop log.tag.WidgetMetrics DEBUG" is set; the calendar then also records
+ * its grid in both modes ("CalendarWidget composite parcel" / "per-cell parcel") so the
+ * two can be compared on a device. The summary is printed by
+ * "adb shell dumpsys activity com.krishna.dailyjournal/.MainActivity" while the app is open.
+ */
+public final class WidgetMetrics {
+    private static final String TAG = "WidgetMetrics";
+
+    // Samples kept per histogram; older ones are overwritten
+    private static final int WINDOW = 128;
+
+    private static final Map<String, Histogram> histograms = new TreeMap<>();
+    private static String trigger = "direct";
+    private static long originMillis;
+
+    private WidgetMetrics() {}
+
+    private static final class Histogram {
+        final boolean nanos;
+        final long[] samples = new long[WINDOW];
+        long count;
+
+        Histogram(boolean nanos) {
+            this.nanos = nanos;
+        }
+
+        void add(long value) {
+            samples[(int) (count % WINDOW)] = value;
+            count++;
+        }
+
+        String summary() {
+            int n = (int) Math.min(count, WINDOW);
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            long last = samples[(int) ((count - 1) % WINDOW)];
+            return "n=" + count
+                + " last=" + format(last)
+                + " min=" + format(sorted[0])
+                + " p50=" + format(sorted[n / 2])
+                + " p90=" + format(sorted[Math.min(n - 1, (n * 9) / 10)])
+                + " max=" + format(sorted[n - 1]);
+        }
+
+        private String format(long value) {
+            if (!nanos) return value + "B";
+            return String.format(java.util.Locale.US, "%.2fms", value / 1_000_000.0);
+        }
+    }
+
+    static boolean detailed() {
+        return Log.isLoggable(TAG, Log.DEBUG);
+    }
+
+    // ========== Refresh scope ==========
+
+    /** Called on the widget thread before a refresh or task runs. */
+    static synchronized void beginRefresh(String refreshTrigger, long requestedAtMillis) {
+        trigger = refreshTrigger;
+        originMillis = requestedAtMillis;
+    }
+
+    /** Records end-to-end latency for the refresh that is ending. */
+    static synchronized void endRefresh() {
+        if (originMillis > 0) {
+            record("latency", (System.currentTimeMillis() - originMillis) * 1_000_000L, true);
+        }
+        trigger = "direct";
+        originMillis = 0;
+    }
+
+    // ========== Stages ==========
+
+    /** Start a timed stage; pass the result to {@link #end}. */
+    static long begin(String stage) {
+        Trace.beginSection("widget:" + stage);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    static void end(String stage, long startNanos) {
+        long elapsed = SystemClock.elapsedRealtimeNanos() - startNanos;
+        Trace.endSection();
+        synchronized (WidgetMetrics.class) {
+            record(stage, elapsed, true);
+        }
+    }
+
+    static synchronized void recordBytes(String stage, long bytes) {
+        record(stage, bytes, false);
+    }
+
+    static void recordBitmap(String provider, Bitmap bitmap) {
+        if (bitmap != null) recordBytes(provider + " bitmap", bitmap.getAllocationByteCount());
+    }
+
+    /** Record the marshalled size of a RemoteViews about to be pushed (detailed mode only). */
+    static void recordViews(String provider, RemoteViews views) {
+        if (!detailed()) return;
+        recordBytes(provider + " parcel", parcelSize(views));
+    }
+
+    static int parcelSize(RemoteViews views) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            views.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static void record(String stage, long value, boolean nanos) {
+        String key = trigger + "/" + stage;
+        Histogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new Histogram(nanos);
+            histograms.put(key, histogram);
+        }
+        histogram.add(value);
+    }
+
+    // ========== Output ==========
+
+    static void dump(PrintWriter writer) {
+        // Read outside this class's lock: the updater records into it while updating
+        long pushed = WidgetsUpdater.getPushedCount();
+        long skipped = WidgetsUpdater.getSkippedCount();
+        dump(writer, pushed, skipped);
+    }
+
+    private static synchronized void dump(PrintWriter writer, long pushed, long skipped) {
+        writer.println("Widget pipeline metrics (last " + WINDOW + " samples per key):");
+        writer.println("  updates pushed=" + pushed + " skipped=" + skipped);
+        if (histograms.isEmpty()) {
+            writer.println("  (no samples yet)");
+        }
+        for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+            writer.println("  " + e.getKey() + ": " + e.getValue().summary());
+        }
+        writer.flush();
+    }
+
+    static void reset() {
+        WidgetsUpdater.resetCounts();
+        synchronized (WidgetMetrics.class) {
+            histograms.clear();
+        }
+    }
+}
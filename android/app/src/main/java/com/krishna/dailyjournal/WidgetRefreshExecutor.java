@@ -0,0 +1,147 @@
+package com.krishna.dailyjournal;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serial background thread for all widget work (file I/O, parsing, bitmap rendering).
+ * Every entry point - file observer, activity resume, alarm, boot and provider callbacks -
+ * goes through here so none of it runs on the main thread.
+ *
+ * Full refreshes are coalesced: while one is waiting to run, further requests replace it
+ * instead of queueing behind it, since the refresh reads the latest data when it starts.
+ * Receivers pass their goAsync() result, which is finished once the work has run.
+ */
+public final class WidgetRefreshExecutor {
+  private static final String TAG = "WidgetRefreshExecutor";
+
+  private static Handler handler;
+  private static Runnable pendingRefresh;
+  // When the oldest request folded into pendingRefresh was made, for latency metrics
+  private static long pendingSince;
+  private static final List<BroadcastReceiver.PendingResult> pendingResults = new ArrayList<>();
+
+  private WidgetRefreshExecutor() {}
+
+  private static synchronized Handler handler() {
+    if (handler == null) {
+      HandlerThread thread = new HandlerThread("widget-refresh", Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      handler = new Handler(thread.getLooper());
+    }
+    return handler;
+  }
+
+  public static void requestRefresh(Context context, String trigger) {
+    requestRefresh(context, trigger, 0, null);
+  }
+
+  public static void requestRefresh(Context context, String trigger, BroadcastReceiver.PendingResult result) {
+    requestRefresh(context, trigger, 0, result);
+  }
+
+  /**
+   * Refresh every widget after {@code delayMs}. A refresh that is still waiting is dropped
+   * and replaced by this one, so bursts of requests collapse into a single run.
+   */
+  public static synchronized void requestRefresh(
+    Context context,
+    String trigger,
+    long delayMs,
+    BroadcastReceiver.PendingResult result
+  ) {
+    final Context app = context.getApplicationContext();
+    Handler h = handler();
+
+    if (pendingRefresh != null) {
+      h.removeCallbacks(pendingRefresh);
+      Log.d(TAG, "Dropped superseded refresh; now " + trigger);
+    }
+    if (result != null) pendingResults.add(result);
+    if (pendingSince == 0) pendingSince = System.currentTimeMillis();
+
+    pendingRefresh = new Runnable() {
+      @Override
+      public void run() {
+        List<BroadcastReceiver.PendingResult> results;
+        long since;
+        synchronized (WidgetRefreshExecutor.class) {
+          if (pendingRefresh != this) return;
+          pendingRefresh = null;
+          since = pendingSince;
+          pendingSince = 0;
+          results = new ArrayList<>(pendingResults);
+          pendingResults.clear();
+        }
+
+        WidgetMetrics.beginRefresh(trigger, since);
+        try {
+          WidgetsUpdater.updateAll(app);
+          Log.d(TAG, "Widgets refreshed (" + trigger + ")");
+        } catch (Exception e) {
+          Log.e(TAG, "Widget refresh failed (" + trigger + ")", e);
+        } finally {
+          WidgetMetrics.endRefresh();
+          for (BroadcastReceiver.PendingResult r : results) {
+            r.finish();
+          }
+        }
+      }
+    };
+    h.postDelayed(pendingRefresh, delayMs);
+  }
+
+  /**
+   * Run one-off widget work (e.g. a provider's onUpdate for specific ids) on the widget
+   * thread, in order with refreshes. {@code result} may be null.
+   */
+  public static void execute(final BroadcastReceiver.PendingResult result, final Runnable work) {
+    execute("task", result, work);
+  }
+
+  /**
+   * Like {@link #execute(BroadcastReceiver.PendingResult, Runnable)}; {@code trigger} labels
+   * the work in {@link WidgetMetrics}.
+   */
+  public static void execute(
+    final String trigger,
+    final BroadcastReceiver.PendingResult result,
+    final Runnable work
+  ) {
+    final long requestedAt = System.currentTimeMillis();
+    handler().post(() -> {
+      WidgetMetrics.beginRefresh(trigger, requestedAt);
+      long start = WidgetMetrics.begin("task");
+      try {
+        work.run();
+      } catch (Exception e) {
+        Log.e(TAG, "Widget task failed", e);
+      } finally {
+        WidgetMetrics.end("task", start);
+        WidgetMetrics.endRefresh();
+        if (result != null) result.finish();
+      }
+    });
+  }
+
+  /**
+   * Cancel a refresh that has not started yet, finishing any receivers waiting on it.
+   */
+  public static synchronized void cancelPending() {
+    if (pendingRefresh == null) return;
+    handler().removeCallbacks(pendingRefresh);
+    pendingRefresh = null;
+    pendingSince = 0;
+    for (BroadcastReceiver.PendingResult r : pendingResults) {
+      r.finish();
+    }
+    pendingResults.clear();
+  }
+}
@@ -0,0 +1,243 @@
+package com.krishna.dailyjournal;
+
+import com.krishna.dailyjournal.core.CalendarMonth;
+import com.krishna.dailyjournal.core.DateKeys;
+import com.krishna.dailyjournal.core.WidgetBinaryData;
+import com.krishna.dailyjournal.core.WidgetDataParser;
+import com.krishna.dailyjournal.core.YearHeatmap;
+import java.io.File;
+
+/**
+ * View of widget-data.json: every scalar field plus the current month of calendarDays. The
+ * fields are final; other months are decoded on first use into a synchronized index it owns.
+ * Loaded once per refresh by {@link WidgetDataReader#getSnapshot} and shared by every provider,
+ * so a refresh costs one read and one parse no matter how many widgets are placed.
+ */
+public final class WidgetSnapshot {
+
+    // Input groups a provider can depend on; see inputsHash()
+    static final int INPUT_THEME = 1;
+    static final int INPUT_HABITS = 1 << 1;
+    static final int INPUT_TODAY_ENTRY = 1 << 2;
+    static final int INPUT_STATS = 1 << 3;
+    static final int INPUT_CALENDAR = 1 << 4;
+    // Not file data: the local date and locale, for widgets that show or depend on "today"
+    static final int INPUT_DATE = 1 << 5;
+    // Every month in the year heatmap's grid, not only the current one
+    static final int INPUT_CALENDAR_YEAR = 1 << 6;
+
+    private static final int NO_DATE = 0;
+
+    static final WidgetSnapshot EMPTY = new WidgetSnapshot(
+        null, null, -1L, -1L, 0, 0, "", "", "", 0, 0, 0, false, 0, null
+    );
+
+    // File identity this snapshot was parsed from (used for cache validation)
+    private final File source;
+    private final WidgetBinaryData binary;
+    final long fileModified;
+    final long fileSize;
+
+    private final int habitsCompleted;
+    private final int habitsTotal;
+    // Packed yyyymmdd (DateKeys.parsePackedKey), or NO_DATE when the app did not record one
+    private final int habitsDay;
+    private final String todaySnippet;
+    private final String todayDate;
+    private final int todayDay;
+    private final int statsEntries;
+    private final int statsStreak;
+    private final int statsWords;
+    private final boolean hasThemeColor;
+    private final int themeColor;
+    // Holds the month that was current at parse time; other months are added as they are read
+    private final WidgetDataReader.CalendarIndex calendarIndex = new WidgetDataReader.CalendarIndex();
+    final int calendarYear;
+    final int calendarMonth;
+
+    WidgetSnapshot(
+        File source,
+        WidgetBinaryData binary,
+        long fileModified,
+        long fileSize,
+        int habitsCompleted,
+        int habitsTotal,
+        String habitsDate,
+        String todaySnippet,
+        String todayDate,
+        int statsEntries,
+        int statsStreak,
+        int statsWords,
+        boolean hasThemeColor,
+        int themeColor,
+        CalendarMonth currentMonth
+    ) {
+        this.source = source;
+        this.binary = binary;
+        this.fileModified = fileModified;
+        this.fileSize = fileSize;
+        this.habitsCompleted = habitsCompleted;
+        this.habitsTotal = habitsTotal;
+        this.habitsDay = packedDay(habitsDate);
+        this.todaySnippet = todaySnippet;
+        this.todayDate = todayDate;
+        this.todayDay = packedDay(todayDate);
+        this.statsEntries = statsEntries;
+        this.statsStreak = statsStreak;
+        this.statsWords = statsWords;
+        this.hasThemeColor = hasThemeColor;
+        this.themeColor = themeColor;
+        this.calendarYear = currentMonth != null ? currentMonth.year : -1;
+        this.calendarMonth = currentMonth != null ? currentMonth.month : -1;
+        if (currentMonth != null) calendarIndex.put(currentMonth);
+    }
+
+    // ========== Habits Progress ==========
+
+    public int getHabitsCompleted(WidgetDay today) {
+        if (habitsDay == NO_DATE) return habitsCompleted;
+
+        // Daily reset: if the stored progress is not for today, completed becomes 0.
+        if (!today.is(habitsDay)) return 0;
+        return habitsCompleted;
+    }
+
+    public int getHabitsTotal() {
+        return habitsTotal;
+    }
+
+    // ========== Today Snippet ==========
+
+    public String getTodaySnippet() {
+        return todaySnippet;
+    }
+
+    /** The snippet, or "" once the day it was written for has passed. */
+    public String getTodaySnippet(WidgetDay today) {
+        if (todayDay != NO_DATE && !today.is(todayDay)) return "";
+        return todaySnippet;
+    }
+
+    public String getTodayDate() {
+        return todayDate;
+    }
+
+    // ========== Stats ==========
+
+    public int getStatsEntries() {
+        return statsEntries;
+    }
+
+    public int getStatsStreak() {
+        return statsStreak;
+    }
+
+    public int getStatsWords() {
+        return statsWords;
+    }
+
+    // ========== Theme Color ==========
+
+    public int getThemeColor(int fallback) {
+        return hasThemeColor ? themeColor : fallback;
+    }
+
+    // ========== Calendar Widget Data ==========
+
+    /**
+     * Get calendar data for a specific month (0-based, like java.util.Calendar).
+     * Never returns null; months without data read as all zero.
+     */
+    public CalendarMonth getCalendarMonth(int year, int month) {
+        CalendarMonth cached = calendarIndex.get(year, month);
+        if (cached != null) return cached;
+
+        // Other months come from the mapped binary when present, else are streamed from the JSON.
+        CalendarMonth loaded = binary != null
+            ? WidgetDataParser.readCalendarMonth(binary, year, month)
+            : WidgetDataReader.readCalendarMonth(source, year, month);
+        calendarIndex.put(loaded);
+        return loaded;
+    }
+
+    /**
+     * Months of the year heatmap ending with today's week. Without the binary, the months not
+     * read yet are streamed from the JSON together in one pass and kept in the calendar index,
+     * so hashing and filling the grid share that read instead of streaming once per month.
+     */
+    YearHeatmap.MonthSource heatmapMonths(WidgetDay today) {
+        if (binary == null) loadCalendarMonths(YearHeatmap.firstEpochDay(today.epochDay), today.epochDay);
+        return this::getCalendarMonth;
+    }
+
+    private void loadCalendarMonths(int firstEpochDay, int lastEpochDay) {
+        int firstPacked = DateKeys.toPackedKey(firstEpochDay);
+        int lastPacked = DateKeys.toPackedKey(lastEpochDay);
+        int from = WidgetDataReader.CalendarIndex.key(firstPacked / 10000, firstPacked / 100 % 100 - 1);
+        int to = WidgetDataReader.CalendarIndex.key(lastPacked / 10000, lastPacked / 100 % 100 - 1);
+
+        int missing = 0;
+        for (int month = from; month <= to; month++) {
+            if (calendarIndex.get(month / 12, month % 12) == null) missing++;
+        }
+        // A single month costs the same pass either way
+        if (missing <= 1) return;
+
+        int start = DateKeys.epochDay(from / 12, from % 12 + 1, 1);
+        int end = DateKeys.epochDay(to / 12, to % 12 + 1, DateKeys.daysInMonth(to / 12, to % 12 + 1));
+        byte[] records = WidgetDataReader.readCalendarDays(source, start, end - start + 1);
+        for (int month = from; month <= to; month++) {
+            if (calendarIndex.get(month / 12, month % 12) == null) {
+                calendarIndex.put(WidgetDataParser.calendarMonth(records, start, month / 12, month % 12));
+            }
+        }
+    }
+
+    // ========== Change Detection ==========
+
+    /**
+     * Hash of the values a provider renders from, limited to the given INPUT_* groups.
+     * Values go through the same getters the providers use, so the habits daily reset
+     * and the current calendar month are reflected.
+     */
+    int inputsHash(int inputs, WidgetDay today) {
+        int h = inputs;
+        if ((inputs & INPUT_THEME) != 0) {
+            h = h * 31 + (hasThemeColor ? themeColor : 0);
+            h = h * 31 + (hasThemeColor ? 1 : 0);
+        }
+        if ((inputs & INPUT_HABITS) != 0) {
+            h = h * 31 + getHabitsCompleted(today);
+            h = h * 31 + habitsTotal;
+        }
+        if ((inputs & INPUT_TODAY_ENTRY) != 0) {
+            h = h * 31 + getTodaySnippet(today).hashCode();
+            h = h * 31 + todayDate.hashCode();
+        }
+        if ((inputs & INPUT_STATS) != 0) {
+            h = h * 31 + statsEntries;
+            h = h * 31 + statsStreak;
+            h = h * 31 + statsWords;
+        }
+        if ((inputs & INPUT_CALENDAR) != 0) {
+            h = h * 31 + getCalendarMonth(today.year, today.month).contentHash();
+        }
+        if ((inputs & INPUT_CALENDAR_YEAR) != 0) {
+            YearHeatmap.MonthSource months = heatmapMonths(today);
+            int first = DateKeys.toPackedKey(YearHeatmap.firstEpochDay(today.epochDay));
+            int month = (first / 10000) * 12 + first / 100 % 100 - 1;
+            for (int end = today.year * 12 + today.month; month <= end; month++) {
+                h = h * 31 + months.month(month / 12, month % 12).contentHash();
+            }
+        }
+        if ((inputs & INPUT_DATE) != 0) {
+            h = h * 31 + today.key;
+            h = h * 31 + today.locale.hashCode();
+        }
+        return h;
+    }
+
+    private static int packedDay(String dateKey) {
+        return dateKey == null || dateKey.isEmpty() ? NO_DATE : DateKeys.parsePackedKey(dateKey);
+    }
+}
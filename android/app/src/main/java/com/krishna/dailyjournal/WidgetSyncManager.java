@@ -1,19 +1,53 @@
 package com.krishna.dailyjournal;
 
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.util.Log;
 
 /**
- * Singleton holder for WidgetDataFileObserver.
- * Starts once per process and keeps running while the app process is alive.
+ * Singleton holder for WidgetDataFileObserver, and owner of the midnight refresh alarm.
+ * Both run only while at least one widget is placed: providers call {@link #sync}
+ * from onEnabled/onDisabled/onUpdate and the activity calls it on start, so a process with
+ * no widgets on the home screen never watches the bridge directory or wakes at midnight.
+ * The clock-change and boot receivers are disabled in the manifest and enabled here for
+ * the same span, so the system does not start the process for them without widgets.
  */
 public final class WidgetSyncManager {
   private static final String TAG = "WidgetSyncManager";
   private static WidgetDataFileObserver observer;
 
+  // Receivers that only have work while widgets are placed
+  private static final Class<?>[] RECEIVERS = {DailyWidgetRefreshReceiver.class, BootReceiver.class};
+  // Enabled state last applied to RECEIVERS; null until set in this process
+  private static Boolean receiversEnabled;
+
   private WidgetSyncManager() {}
 
-  public static synchronized void ensureStarted(Context context) {
+  /**
+   * Start or stop the observer and the midnight alarm to match the current set of placed
+   * widgets. Queries AppWidgetManager, so call it off the main thread.
+   */
+  public static synchronized void sync(Context context) {
+    if (hasActiveWidgets(context)) {
+      setReceiversEnabled(context, true);
+      ensureStarted(context);
+      WidgetAlarmScheduler.scheduleNextMidnightRefresh(context);
+    } else {
+      stop();
+      WidgetAlarmScheduler.cancel(context);
+      setReceiversEnabled(context, false);
+    }
+  }
+
+  /** Post {@link #sync} to the widget thread. */
+  public static void requestSync(Context context) {
+    final Context app = context.getApplicationContext();
+    WidgetRefreshExecutor.execute("sync", null, () -> sync(app));
+  }
+
+  private static void ensureStarted(Context context) {
     if (observer != null) return;
     try {
       observer = new WidgetDataFileObserver(context.getApplicationContext());
@@ -24,4 +58,38 @@ public final class WidgetSyncManager {
       observer = null;
     }
   }
+
+  private static void stop() {
+    if (observer == null) return;
+    observer.stop();
+    observer = null;
+    Log.d(TAG, "Widget file observer stopped; no widgets placed");
+  }
+
+  private static void setReceiversEnabled(Context context, boolean enabled) {
+    if (receiversEnabled != null && receiversEnabled == enabled) return;
+    PackageManager pm = context.getPackageManager();
+    // Disabled is the manifest default, so going back to it needs no explicit state
+    int state = enabled
+      ? PackageManager.COMPONENT_ENABLED_STATE_ENABLED
+      : PackageManager.COMPONENT_ENABLED_STATE_DEFAULT;
+    try {
+      for (Class<?> receiver : RECEIVERS) {
+        pm.setComponentEnabledSetting(new ComponentName(context, receiver), state, PackageManager.DONT_KILL_APP);
+      }
+      receiversEnabled = enabled;
+      Log.d(TAG, "Widget receivers " + (enabled ? "enabled" : "disabled"));
+    } catch (Exception e) {
+      Log.e(TAG, "Failed to " + (enabled ? "enable" : "disable") + " widget receivers", e);
+    }
+  }
+
+  private static boolean hasActiveWidgets(Context context) {
+    AppWidgetManager mgr = AppWidgetManager.getInstance(context);
+    for (Class<?> providerClass : WidgetsUpdater.PROVIDERS) {
+      int[] ids = mgr.getAppWidgetIds(new ComponentName(context, providerClass));
+      if (ids != null && ids.length > 0) return true;
+    }
+    return false;
+  }
 }
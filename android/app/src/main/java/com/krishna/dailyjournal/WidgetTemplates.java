@@ -0,0 +1,95 @@
+package com.krishna.dailyjournal;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.SparseArray;
+import android.widget.RemoteViews;
+
+/**
+ * Per-process cache of the parts of each widget that never change between refreshes: the
+ * layout with its click bindings and static text, and the PendingIntents behind them.
+ *
+ * Providers build their template once, then every update starts from a copy of it and
+ * only applies the data-driven overlay (accent, counts, bitmaps). Each
+ * PendingIntent.getActivity is a call into system_server, so those are made once per
+ * request code instead of on every refresh.
+ */
+final class WidgetTemplates {
+    private WidgetTemplates() {}
+
+    /** Adds the static views and click bindings to a freshly inflated template. */
+    interface Binder {
+        void bind(Context context, RemoteViews template);
+    }
+
+    /** Adds the extras that tell MainActivity where to open. */
+    interface Extras {
+        void put(Intent intent);
+    }
+
+    // Guarded by the class lock
+    private static final SparseArray<RemoteViews> TEMPLATES = new SparseArray<>();
+    private static final SparseArray<PendingIntent> ACTIVITY_INTENTS = new SparseArray<>();
+    private static final SparseArray<String> ACTIVITY_VARIANTS = new SparseArray<>();
+
+    /**
+     * A new RemoteViews for {@code layoutId} with the template's actions already applied.
+     * {@code binder} runs only the first time the layout is used in this process.
+     */
+    static synchronized RemoteViews create(Context context, int layoutId, Binder binder) {
+        RemoteViews template = TEMPLATES.get(layoutId);
+        if (template == null) {
+            Context app = context.getApplicationContext();
+            template = new RemoteViews(app.getPackageName(), layoutId);
+            binder.bind(app, template);
+            TEMPLATES.put(layoutId, template);
+        }
+        return copy(template);
+    }
+
+    /**
+     * PendingIntent that opens MainActivity with the given extras, created once per request
+     * code.
+     */
+    static PendingIntent openApp(Context context, int requestCode, Extras extras) {
+        return openApp(context, requestCode, "", extras);
+    }
+
+    /**
+     * Like {@link #openApp(Context, int, Extras)} for intents whose extras change over time
+     * (e.g. today's date): the PendingIntent is re-issued only when {@code variant} differs
+     * from the one it was last created with.
+     */
+    static synchronized PendingIntent openApp(Context context, int requestCode, String variant, Extras extras) {
+        PendingIntent cached = ACTIVITY_INTENTS.get(requestCode);
+        if (cached != null && variant.equals(ACTIVITY_VARIANTS.get(requestCode))) {
+            return cached;
+        }
+
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        extras.put(intent);
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        ACTIVITY_INTENTS.put(requestCode, pendingIntent);
+        ACTIVITY_VARIANTS.put(requestCode, variant);
+        return pendingIntent;
+    }
+
+    /** An independent copy of {@code views}, e.g. to add per-widget actions to shared views. */
+    @SuppressWarnings("deprecation")
+    static RemoteViews copy(RemoteViews views) {
+        // The copy constructor is API 28+; clone() does the same before that
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return new RemoteViews(views);
+        }
+        return views.clone();
+    }
+}
@@ -3,36 +3,157 @@ package com.krishna.dailyjournal;
 import android.appwidget.AppWidgetManager;
 import android.content.ComponentName;
 import android.content.Context;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Central place to force-refresh all widgets immediately (no updatePeriodMillis reliance).
+ *
+ * Each provider declares the snapshot inputs it renders from (its INPUTS mask). A provider
+ * is only redrawn when the hash of those inputs, or its set of widget ids, differs from
+ * what was last pushed. System onUpdate and resize callbacks bypass this and always draw.
  */
 public final class WidgetsUpdater {
+  private static final String TAG = "WidgetsUpdater";
+
+  // Every provider registered in the manifest, in update order
+  static final Class<?>[] PROVIDERS = {
+    QuickEntryWidgetProvider.class,
+    HabitsProgressWidgetProvider.class,
+    StatsWidgetProvider.class,
+    CalendarWidgetProvider.class,
+    YearHeatmapWidgetProvider.class,
+  };
+
+  // Last pushed inputs hash per provider; in memory, so a new process redraws everything once.
+  // Guarded by itself, and only held around map access: rendering runs unlocked.
+  private static final Map<Class<?>, Integer> lastPushed = new HashMap<>();
+  private static final AtomicLong updatesPushed = new AtomicLong();
+  private static final AtomicLong updatesSkipped = new AtomicLong();
+
   private WidgetsUpdater() {}
 
   public static void updateAll(Context context) {
     AppWidgetManager mgr = AppWidgetManager.getInstance(context);
 
-    // Update all active widgets in order: Quick Entry, Habits Progress, Stats, Calendar
-    updateProvider(context, mgr, QuickEntryWidgetProvider.class);
-    updateProvider(context, mgr, HabitsProgressWidgetProvider.class);
-    updateProvider(context, mgr, StatsWidgetProvider.class);
-    updateProvider(context, mgr, CalendarWidgetProvider.class);
+    // One notion of "today" per refresh, shared by the snapshot and every provider
+    WidgetDay today = WidgetDay.now();
+
+    // Read and parse widget-data.json once; every provider renders from the same snapshot.
+    WidgetSnapshot snapshot = WidgetDataReader.getSnapshot(context, today);
+
+    // Update all active widgets in order: Quick Entry, Habits Progress, Stats, Calendar, Year Heatmap
+    for (Class<?> providerClass : PROVIDERS) {
+      updateProvider(context, mgr, snapshot, today, providerClass);
+    }
+
+    Log.d(TAG, "Widget updates pushed " + getPushedCount() + ", skipped " + getSkippedCount());
+  }
+
+  /** Number of provider updates skipped because their inputs had not changed. */
+  public static long getSkippedCount() {
+    return updatesSkipped.get();
+  }
+
+  public static long getPushedCount() {
+    return updatesPushed.get();
+  }
+
+  static void resetCounts() {
+    updatesPushed.set(0);
+    updatesSkipped.set(0);
   }
 
-  private static void updateProvider(Context context, AppWidgetManager mgr, Class<?> providerClass) {
+  /** Forget all pushed hashes so the next updateAll redraws every provider. */
+  public static void invalidate() {
+    synchronized (lastPushed) {
+      lastPushed.clear();
+    }
+  }
+
+  private static void updateProvider(
+    Context context,
+    AppWidgetManager mgr,
+    WidgetSnapshot snapshot,
+    WidgetDay today,
+    Class<?> providerClass
+  ) {
     ComponentName cn = new ComponentName(context, providerClass);
     int[] ids = mgr.getAppWidgetIds(cn);
-    if (ids == null || ids.length == 0) return;
+    if (ids == null || ids.length == 0) {
+      synchronized (lastPushed) {
+        lastPushed.remove(providerClass);
+      }
+      return;
+    }
 
+    int hash = snapshot.inputsHash(inputsOf(providerClass), today) * 31 + Arrays.hashCode(ids);
+    if (providerClass == CalendarWidgetProvider.class) {
+      // Instances can be navigated away from the current month
+      hash = hash * 31 + CalendarWidgetProvider.viewedMonthsHash(context, ids, snapshot, today);
+    }
+    Integer last;
+    synchronized (lastPushed) {
+      last = lastPushed.get(providerClass);
+    }
+    if (last != null && last == hash) {
+      updatesSkipped.incrementAndGet();
+      return;
+    }
+    updatesPushed.incrementAndGet();
+
+    String stage = "render " + providerClass.getSimpleName();
+    long start = WidgetMetrics.begin(stage);
+    boolean rendered = false;
+    try {
+      rendered = renderProvider(context, mgr, snapshot, today, providerClass, ids);
+    } finally {
+      WidgetMetrics.end(stage, start);
+      // Only a successful render may skip the next identical update
+      synchronized (lastPushed) {
+        if (rendered) {
+          lastPushed.put(providerClass, hash);
+        } else {
+          lastPushed.remove(providerClass);
+        }
+      }
+    }
+  }
+
+  // Returns false if any instance failed to render
+  private static boolean renderProvider(
+    Context context,
+    AppWidgetManager mgr,
+    WidgetSnapshot snapshot,
+    WidgetDay today,
+    Class<?> providerClass,
+    int[] ids
+  ) {
     if (providerClass == QuickEntryWidgetProvider.class) {
-      QuickEntryWidgetProvider.updateAll(context, mgr, ids);
+      return QuickEntryWidgetProvider.updateAll(context, mgr, ids, snapshot, today);
     } else if (providerClass == HabitsProgressWidgetProvider.class) {
-      HabitsProgressWidgetProvider.updateAll(context, mgr, ids);
+      return HabitsProgressWidgetProvider.updateAll(context, mgr, ids, snapshot, today);
     } else if (providerClass == StatsWidgetProvider.class) {
-      StatsWidgetProvider.updateAll(context, mgr, ids);
+      return StatsWidgetProvider.updateAll(context, mgr, ids, snapshot, today);
     } else if (providerClass == CalendarWidgetProvider.class) {
-      CalendarWidgetProvider.updateAll(context, mgr, ids);
+      return CalendarWidgetProvider.updateAll(context, mgr, ids, snapshot, today);
+    } else if (providerClass == YearHeatmapWidgetProvider.class) {
+      return YearHeatmapWidgetProvider.updateAll(context, mgr, ids, snapshot, today);
     }
+    return false;
+  }
+
+  private static int inputsOf(Class<?> providerClass) {
+    if (providerClass == QuickEntryWidgetProvider.class) return QuickEntryWidgetProvider.INPUTS;
+    if (providerClass == HabitsProgressWidgetProvider.class) return HabitsProgressWidgetProvider.INPUTS;
+    if (providerClass == StatsWidgetProvider.class) return StatsWidgetProvider.INPUTS;
+    if (providerClass == CalendarWidgetProvider.class) return CalendarWidgetProvider.INPUTS;
+    if (providerClass == YearHeatmapWidgetProvider.class) return YearHeatmapWidgetProvider.INPUTS;
+    // Unknown provider: depend on everything
+    return ~0;
   }
 }
@@ -0,0 +1,201 @@
+package com.krishna.dailyjournal;
+
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.widget.RemoteViews;
+
+import com.krishna.dailyjournal.core.YearHeatmap;
+import java.util.Map;
+
+public class YearHeatmapWidgetProvider extends AppWidgetProvider {
+
+    private static final String TAG = "YearHeatmapWidget";
+
+    // Snapshot inputs this widget renders from; WidgetsUpdater skips it when they are unchanged
+    static final int INPUTS = WidgetSnapshot.INPUT_THEME
+        | WidgetSnapshot.INPUT_CALENDAR_YEAR
+        | WidgetSnapshot.INPUT_DATE;
+
+    // Space taken by padding, header and accent line in widget_year_heatmap.xml
+    private static final int CHROME_WIDTH_DP = 20;
+    private static final int CHROME_HEIGHT_DP = 46;
+
+    // Bounds of widget_year_heatmap_info.xml's minimum size, until the launcher reports one
+    private static final int DEFAULT_WIDTH_DP = 290;
+    private static final int DEFAULT_HEIGHT_DP = 110;
+
+    @Override
+    public void onEnabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        WidgetSyncManager.requestSync(context);
+    }
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        WidgetRefreshExecutor.execute("onUpdate", goAsync(), () -> {
+            WidgetSyncManager.sync(context);
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, appWidgetIds, WidgetDataReader.getSnapshot(context, today), today);
+        });
+    }
+
+    @Override
+    public void onAppWidgetOptionsChanged(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int appWidgetId,
+        Bundle newOptions
+    ) {
+        WidgetRefreshExecutor.execute("resize", goAsync(), () -> {
+            WidgetDay today = WidgetDay.now();
+            updateAll(context, appWidgetManager, new int[]{appWidgetId}, WidgetDataReader.getSnapshot(context, today), today);
+        });
+    }
+
+    /** Returns false if any instance failed to update. */
+    public static boolean updateAll(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        if (appWidgetIds.length == 0) return true;
+
+        // One pass over the months in the grid, shared by every instance
+        byte[] levels = new byte[YearHeatmap.CELLS];
+        int entries = YearHeatmap.fill(levels, today.epochDay, snapshot.heatmapMonths(today));
+
+        // The image sizes are the only per-instance input
+        Map<ImageSizes, int[]> groups = WidgetGroups.group(appWidgetIds,
+            appWidgetId -> getImageSizes(context, appWidgetManager, appWidgetId));
+        boolean updated = true;
+        for (Map.Entry<ImageSizes, int[]> group : groups.entrySet()) {
+            updated &= updateGroup(context, appWidgetManager, group.getValue(), group.getKey(),
+                levels, entries, snapshot, today);
+        }
+        return updated;
+    }
+
+    private static boolean updateGroup(
+        Context context,
+        AppWidgetManager appWidgetManager,
+        int[] appWidgetIds,
+        ImageSizes sizes,
+        byte[] levels,
+        int entries,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        try {
+            RemoteViews portrait = buildViews(context, sizes.portrait, levels, entries, snapshot, today);
+            // The launcher picks the layout for the current orientation
+            RemoteViews views = sizes.landscape == sizes.portrait
+                ? portrait
+                : new RemoteViews(buildViews(context, sizes.landscape, levels, entries, snapshot, today), portrait);
+
+            WidgetMetrics.recordViews(TAG, views);
+            appWidgetManager.updateAppWidget(appWidgetIds, views);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating widget", e);
+            return false;
+        }
+    }
+
+    // The layout with the heatmap drawn at one image size, packed as width << 32 | height
+    private static RemoteViews buildViews(
+        Context context,
+        long sizePx,
+        byte[] levels,
+        int entries,
+        WidgetSnapshot snapshot,
+        WidgetDay today
+    ) {
+        RemoteViews views = WidgetTemplates.create(
+            context, R.layout.widget_year_heatmap, YearHeatmapWidgetProvider::bindTemplate);
+
+        int accent = snapshot.getThemeColor(0xFF7C3AED);
+        try {
+            views.setInt(R.id.widget_accent, "setBackgroundColor", accent);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not set accent color", e);
+        }
+        views.setTextColor(R.id.heatmap_title, accent);
+        views.setTextViewText(R.id.heatmap_count, entries + (entries == 1 ? " ENTRY" : " ENTRIES"));
+
+        int first = YearHeatmap.firstEpochDay(today.epochDay);
+        Bitmap heatmap = HeatmapRenderer.render((int) (sizePx >>> 32), (int) sizePx,
+            levels, first, today.epochDay - first, accent);
+        WidgetMetrics.recordBitmap(TAG, heatmap);
+        views.setImageViewBitmap(R.id.heatmap_image, heatmap);
+        return views;
+    }
+
+    // Static part of the layout, built once per process
+    private static void bindTemplate(Context context, RemoteViews views) {
+        // Open app on tap
+        views.setOnClickPendingIntent(R.id.widget_year_heatmap, WidgetTemplates.openApp(context, 500, intent -> {}));
+    }
+
+    /**
+     * Pixel sizes of the heatmap image for the widget's portrait (min width x max height) and
+     * landscape (max width x min height) bounds.
+     */
+    private static ImageSizes getImageSizes(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        Bundle options = appWidgetManager.getAppWidgetOptions(appWidgetId);
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        return new ImageSizes(
+            imageSizePx(options, AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH,
+                AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT, metrics.density),
+            imageSizePx(options, AppWidgetManager.OPTION_APPWIDGET_MAX_WIDTH,
+                AppWidgetManager.OPTION_APPWIDGET_MIN_HEIGHT, metrics.density));
+    }
+
+    // Image size for one pair of bounds, packed as width << 32 | height
+    private static long imageSizePx(Bundle options, String widthOption, String heightOption, float density) {
+        int widthDp = options != null ? options.getInt(widthOption, 0) : 0;
+        int heightDp = options != null ? options.getInt(heightOption, 0) : 0;
+        if (widthDp <= CHROME_WIDTH_DP || heightDp <= CHROME_HEIGHT_DP) {
+            widthDp = DEFAULT_WIDTH_DP;
+            heightDp = DEFAULT_HEIGHT_DP;
+        }
+
+        long widthPx = Math.max(YearHeatmap.WEEKS, Math.round((widthDp - CHROME_WIDTH_DP) * density));
+        long heightPx = Math.max(YearHeatmap.ROWS, Math.round((heightDp - CHROME_HEIGHT_DP) * density));
+        return (widthPx << 32) | heightPx;
+    }
+
+    /** Image sizes of one group of widgets, each packed as width << 32 | height. */
+    private static final class ImageSizes {
+        final long portrait;
+        final long landscape;
+
+        ImageSizes(long portrait, long landscape) {
+            this.portrait = portrait;
+            this.landscape = landscape;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ImageSizes)) return false;
+            ImageSizes other = (ImageSizes) o;
+            return portrait == other.portrait && landscape == other.landscape;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(portrait) + Long.hashCode(landscape);
+        }
+    }
+}
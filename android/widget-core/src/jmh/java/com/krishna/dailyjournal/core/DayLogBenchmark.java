@@ -0,0 +1,144 @@
+package com.krishna.dailyjournal.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Day storage over 1, 5 and 20 years of history: the {@link DayLog} against the per-day
+ * folder layout it replaces (content.txt, photos.json and meta.json per day folder).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayLogBenchmark {
+    private static final String[] DAY_FILES = {"content.txt", "photos.json", "meta.json"};
+
+    @Param({"1", "5", "20"})
+    public int years;
+
+    private History history;
+    private File root;
+    private File folders;
+    private DayLog log;
+    private int toggle;
+
+    @Setup
+    public void setUp() throws IOException {
+        history = new History(years);
+        root = Files.createTempDirectory("day-log-bench").toFile();
+        folders = new File(root, "kcsdiary");
+        log = DayLog.open(new File(root, "day-log"));
+
+        for (int i = 0; i < history.epochDays.length; i++) {
+            String content = history.contents[i];
+            String meta = "{\"tags\":[\"daily\"],\"mood\":\"good\",\"habits\":{\"h1\":true}}";
+            String day = "{\"content\":" + quote(content) + ",\"photos\":[]," + meta.substring(1);
+            log.write(history.epochDays[i], day.getBytes(StandardCharsets.UTF_8));
+
+            File folder = new File(folders, folderName(history.epochDays[i]));
+            folder.mkdirs();
+            writeText(new File(folder, DAY_FILES[0]), content);
+            writeText(new File(folder, DAY_FILES[1]), "[]");
+            writeText(new File(folder, DAY_FILES[2]), meta);
+        }
+        log.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        delete(root);
+    }
+
+    /** Cold start: rebuilding the index from the segments. */
+    @Benchmark
+    public int openLog() throws IOException {
+        try (DayLog cold = DayLog.open(new File(root, "day-log"))) {
+            return cold.size();
+        }
+    }
+
+    /** Loading one day from the log: one positional read. */
+    @Benchmark
+    public byte[] readDay() throws IOException {
+        return log.read(history.lastEpochDay);
+    }
+
+    /** Loading one day from its folder: three file opens. */
+    @Benchmark
+    public void readDayFolder(Blackhole bh) throws IOException {
+        File folder = new File(folders, folderName(history.lastEpochDay));
+        for (String name : DAY_FILES) {
+            bh.consume(Files.readAllBytes(new File(folder, name).toPath()));
+        }
+    }
+
+    /** Saving today's entry, alternating between two texts. */
+    @Benchmark
+    public void writeDay() throws IOException {
+        String content = (toggle++ & 1) == 0 ? "Walked to the lake" : "Walked to the lake and back";
+        log.write(history.lastEpochDay, ("{\"content\":\"" + content + "\",\"photos\":[]}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Every day in the history from the log. */
+    @Benchmark
+    public void scanLog(Blackhole bh) throws IOException {
+        log.scan((epochDay, payload) -> bh.consume(payload));
+    }
+
+    /** Every day in the history from the folders. */
+    @Benchmark
+    public void scanFolders(Blackhole bh) throws IOException {
+        File[] days = folders.listFiles();
+        for (File folder : days) {
+            for (String name : DAY_FILES) {
+                bh.consume(Files.readAllBytes(new File(folder, name).toPath()));
+            }
+        }
+    }
+
+    private static String folderName(int epochDay) {
+        String key = DateKeys.toDateKey(epochDay);
+        return key.substring(8) + "-" + key.substring(5, 7) + "-" + key.substring(0, 4);
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void writeText(File file, String text) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+}
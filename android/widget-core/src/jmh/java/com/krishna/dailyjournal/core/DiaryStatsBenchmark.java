@@ -0,0 +1,66 @@
+package com.krishna.dailyjournal.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stats and streak calculation over 1, 5 and 20 years of history: the one-off rebuild
+ * against the per-save incremental path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiaryStatsBenchmark {
+    @Param({"1", "5", "20"})
+    public int years;
+
+    private History history;
+    private DiaryStats stats;
+    private int toggle;
+
+    @Setup
+    public void setUp() {
+        history = new History(years);
+        stats = new DiaryStats();
+        stats.rebuild(history.epochDays, history.contents, history.hasPhotos);
+    }
+
+    @Benchmark
+    public DiaryStats rebuild() {
+        DiaryStats fresh = new DiaryStats();
+        fresh.rebuild(history.epochDays, history.contents, history.hasPhotos);
+        return fresh;
+    }
+
+    /** Editing today's entry, alternating between two texts so every call is a change. */
+    @Benchmark
+    public int applyToday() {
+        int day = history.lastEpochDay;
+        String content = (toggle++ & 1) == 0 ? history.contents[history.contents.length - 1] + " more" : "";
+        stats.applyDay(day, content, false);
+        return stats.getStreak(day);
+    }
+
+    @Benchmark
+    public int streak() {
+        return stats.getStreak(history.lastEpochDay);
+    }
+
+    @Benchmark
+    public int countWords() {
+        return DiaryStats.countWords(history.contents[history.contents.length - 1]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.krishna.dailyjournal.core;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * A generated diary history of a given length ending today, in the shapes the widgets read:
+ * widget-data.json text, the matching widget-data.bin and per-day entry text.
+ */
+final class History {
+    private static final String[] WORDS = {
+        "today", "walked", "coffee", "rain", "meeting", "read", "tired", "grateful", "family", "work",
+    };
+
+    final int lastEpochDay;
+    final int firstEpochDay;
+    final int[] epochDays;
+    final String[] contents;
+    final boolean[] hasPhotos;
+    final String json;
+    final WidgetBinaryData binary;
+
+    History(int years) {
+        Random random = new Random(years);
+        lastEpochDay = DateKeys.today();
+        firstEpochDay = lastEpochDay - years * 365 + 1;
+        int days = lastEpochDay - firstEpochDay + 1;
+
+        epochDays = new int[days];
+        contents = new String[days];
+        hasPhotos = new boolean[days];
+        byte[] records = new byte[days];
+
+        StringBuilder json = new StringBuilder(days * 56 + 256);
+        json.append("{\"sequence\":1,\"habitsCompleted\":2,\"habitsTotal\":5,\"habitsDate\":\"")
+            .append(DateKeys.toDateKey(lastEpochDay))
+            .append("\",\"todaySnippet\":\"Walked to the lake\",\"todayDate\":\"")
+            .append(DateKeys.toDateKey(lastEpochDay))
+            .append("\",\"statsEntries\":0,\"statsStreak\":0,\"statsWords\":0,\"themeColor\":\"#7C3AED\",")
+            .append("\"calendarDays\":{");
+        for (int i = 0; i < days; i++) {
+            int epochDay = firstEpochDay + i;
+            // Roughly three entries a week, in runs
+            boolean hasEntry = random.nextInt(7) < 3 || (i > 0 && contents[i - 1] != null && random.nextBoolean());
+            int progress = random.nextInt(5) * 25;
+
+            epochDays[i] = epochDay;
+            contents[i] = hasEntry ? text(random, 20 + random.nextInt(200)) : "";
+            hasPhotos[i] = random.nextInt(20) == 0;
+            records[i] = WidgetBinaryData.record(progress, hasEntry);
+
+            if (i > 0) json.append(',');
+            json.append('"').append(DateKeys.toDateKey(epochDay)).append("\":{\"habitProgress\":")
+                .append(progress).append(",\"hasEntry\":").append(hasEntry).append('}');
+        }
+        json.append("}}");
+        this.json = json.toString();
+
+        ByteBuffer encoded = WidgetBinaryData.encode(1L, 2, 5, lastEpochDay, 0, 0, 0, true, 0xFF7C3AED, firstEpochDay, records);
+        binary = WidgetBinaryData.wrap(encoded);
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder sb = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(i % 12 == 0 ? '\n' : ' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.krishna.dailyjournal.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Widget data parsing and calendar month lookups over 1, 5 and 20 years of history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WidgetDataBenchmark {
+    @Param({"1", "5", "20"})
+    public int years;
+
+    private History history;
+    private int year;
+    private int month;
+    private CalendarMonth current;
+    private final byte[] levels = new byte[YearHeatmap.CELLS];
+
+    @Setup
+    public void setUp() {
+        history = new History(years);
+        String today = DateKeys.toDateKey(history.lastEpochDay);
+        year = Integer.parseInt(today.substring(0, 4));
+        month = Integer.parseInt(today.substring(5, 7)) - 1;
+        current = WidgetDataParser.readCalendarMonth(history.binary, year, month);
+    }
+
+    /** Cold refresh without a matching binary: the whole JSON is streamed. */
+    @Benchmark
+    public WidgetData parseJson() throws IOException {
+        return WidgetDataParser.parse(new StringReader(history.json), null, year, month);
+    }
+
+    /** Cold refresh with a matching binary: only the head of the JSON is read. */
+    @Benchmark
+    public WidgetData parseJsonWithBinary() throws IOException {
+        return WidgetDataParser.parse(new StringReader(history.json), history.binary, year, month);
+    }
+
+    /** A month that is not cached yet, streamed from the JSON. */
+    @Benchmark
+    public CalendarMonth monthFromJson() throws IOException {
+        return WidgetDataParser.readCalendarMonth(new StringReader(history.json), year, month);
+    }
+
+    /** The same month sliced from the binary. */
+    @Benchmark
+    public CalendarMonth monthFromBinary() {
+        return WidgetDataParser.readCalendarMonth(history.binary, year, month);
+    }
+
+    /** Laying out the 42 cells of the current month, as the calendar widget does per render. */
+    @Benchmark
+    public void calendarGrid(Blackhole bh) {
+        int offset = CalendarGrid.startOffset(year, month);
+        for (int i = 0; i < CalendarGrid.CELLS; i++) {
+            int day = CalendarGrid.dayAt(i, offset, current.daysInMonth);
+            if (day == 0) continue;
+            bh.consume(current.getProgress(day));
+            bh.consume(current.hasEntry(day));
+        }
+    }
+
+    /** Filling the year heatmap's cells, reading each month it spans from the binary. */
+    @Benchmark
+    public int yearHeatmap() {
+        return YearHeatmap.fill(levels, history.lastEpochDay,
+            (y, m) -> WidgetDataParser.readCalendarMonth(history.binary, y, m));
+    }
+}
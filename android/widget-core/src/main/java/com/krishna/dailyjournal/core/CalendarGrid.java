@@ -0,0 +1,29 @@
+package com.krishna.dailyjournal.core;
+
+/**
+ * Layout of the calendar widget's month grid: 6 rows x 7 columns, weeks starting on
+ * Saturday (column 0 = Saturday, 1 = Sunday, ... 6 = Friday).
+ */
+public final class CalendarGrid {
+    private CalendarGrid() {}
+
+    public static final int ROWS = 6;
+    public static final int COLUMNS = 7;
+    public static final int CELLS = ROWS * COLUMNS;
+
+    /**
+     * Grid index of day 1 of the month (0-based month, like java.util.Calendar).
+     */
+    public static int startOffset(int year, int month) {
+        // 1970-01-01 was a Thursday, which is column 5
+        return Math.floorMod(DateKeys.epochDay(year, month + 1, 1) + 5, COLUMNS);
+    }
+
+    /**
+     * Day of month shown in grid cell {@code index}, or 0 for a blank cell.
+     */
+    public static int dayAt(int index, int startOffset, int daysInMonth) {
+        int day = index - startOffset + 1;
+        return day >= 1 && day <= daysInMonth ? day : 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.krishna.dailyjournal.core;
+
+import java.util.Arrays;
+
+/**
+ * One month of calendar data in primitive form: habit progress per day in a byte[]
+ * and the "has entry" flags as a bit mask (bit n-1 = day n).
+ */
+public final class CalendarMonth {
+    public final int year;
+    public final int month; // 0-based, like java.util.Calendar
+    public final int daysInMonth;
+
+    private final byte[] progress = new byte[31];
+    private long entryMask;
+
+    public CalendarMonth(int year, int month) {
+        this.year = year;
+        this.month = month;
+        this.daysInMonth = DateKeys.daysInMonth(year, month + 1);
+    }
+
+    public void set(int day, int habitProgress, boolean hasEntry) {
+        if (day < 1 || day > daysInMonth) return;
+        progress[day - 1] = (byte) Math.max(0, Math.min(100, habitProgress));
+        if (hasEntry) {
+            entryMask |= 1L << (day - 1);
+        } else {
+            entryMask &= ~(1L << (day - 1));
+        }
+    }
+
+    /** Habit progress (0-100) for a 1-based day of month. */
+    public int getProgress(int day) {
+        return progress[day - 1];
+    }
+
+    public boolean hasEntry(int day) {
+        return (entryMask & (1L << (day - 1))) != 0;
+    }
+
+    /** Hash of the month's day data, for change detection. */
+    public int contentHash() {
+        int h = year * 12 + month;
+        h = h * 31 + Arrays.hashCode(progress);
+        return h * 31 + Long.hashCode(entryMask);
+    }
+}
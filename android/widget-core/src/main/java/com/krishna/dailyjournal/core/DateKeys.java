@@ -0,0 +1,117 @@
+package com.krishna.dailyjournal.core;
+
+import java.time.LocalDate;
+
+/**
+ * YYYY-MM-DD date keys and epoch-day arithmetic (days since 1970-01-01, proleptic
+ * Gregorian). Used for every day-indexed store shared with the web app.
+ *
+ * Where a key only needs comparing, it is handled as a packed int (yyyymmdd, e.g. 20260314)
+ * so no strings are built.
+ */
+public final class DateKeys {
+    private DateKeys() {}
+
+    /** Returned by {@link #parseDateKey} and {@link #parsePackedKey} for malformed keys. */
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    /**
+     * Days outside 1900-01-01..2199-12-31 are not stored by day-indexed arrays, so a single
+     * bogus key cannot size one to millions of days.
+     */
+    public static final int MIN_EPOCH_DAY = epochDay(1900, 1, 1);
+    public static final int MAX_EPOCH_DAY = epochDay(2199, 12, 31);
+
+    /** Days since 1970-01-01 for a civil date; month is 1-based. */
+    public static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** Whether a day falls in MIN_EPOCH_DAY..MAX_EPOCH_DAY; false for {@link #INVALID}. */
+    public static boolean inRange(int epochDay) {
+        return epochDay >= MIN_EPOCH_DAY && epochDay <= MAX_EPOCH_DAY;
+    }
+
+    /** Month is 1-based. */
+    public static int daysInMonth(int year, int month) {
+        int nextYear = month == 12 ? year + 1 : year;
+        int nextMonth = month == 12 ? 1 : month + 1;
+        return epochDay(nextYear, nextMonth, 1) - epochDay(year, month, 1);
+    }
+
+    /** Local date of the device as an epoch day. */
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    /** Epoch day of a YYYY-MM-DD key, or {@link #INVALID} if it is malformed. */
+    public static int parseDateKey(String key) {
+        int packed = parsePackedKey(key);
+        return packed == INVALID ? INVALID : epochDay(packed / 10000, packed / 100 % 100, packed % 100);
+    }
+
+    /** Packed yyyymmdd form of a YYYY-MM-DD key, or {@link #INVALID} if it is malformed. */
+    public static int parsePackedKey(String key) {
+        if (key == null || key.length() != 10 || key.charAt(4) != '-' || key.charAt(7) != '-') {
+            return INVALID;
+        }
+        int year = digits(key, 0, 4);
+        int month = digits(key, 5, 7);
+        int day = digits(key, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return INVALID;
+        return packedKey(year, month, day);
+    }
+
+    private static int digits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Month is 1-based. */
+    public static int packedKey(int year, int month, int day) {
+        return year * 10000 + month * 100 + day;
+    }
+
+    /** Packed yyyymmdd key of an epoch day. */
+    public static int toPackedKey(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return packedKey(year, month, day);
+    }
+
+    public static String toDateKey(int epochDay) {
+        int packed = toPackedKey(epochDay);
+        char[] key = new char[10];
+        writeDigits(key, 0, 4, packed / 10000);
+        key[4] = '-';
+        writeDigits(key, 5, 2, packed / 100 % 100);
+        key[7] = '-';
+        writeDigits(key, 8, 2, packed % 100);
+        return new String(key);
+    }
+
+    private static void writeDigits(char[] out, int start, int count, int value) {
+        for (int i = start + count - 1; i >= start; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.krishna.dailyjournal.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One-time move of the per-day folder layout (kcsdiary/dd-MM-yyyy/ with content.txt,
+ * photos.json and meta.json, as written by useFileStorage.ts) into a {@link DayLog}.
+ *
+ *   1. every folder's text files are read and parsed. A file that cannot be read or parsed
+ *      (e.g. a meta.json cut short by an interrupted write) is renamed to
+ *      {@code <name>.unreadable} and left out; the rest of its day still migrates,
+ *   2. each day is written to the log, merged with the record the log already holds for it,
+ *      and forced to disk. The folder's fields win: until the migration has succeeded the app
+ *      saves to the folders and native writes are refused, so a record can only be a copy
+ *      from an earlier, interrupted run,
+ *   3. only then are the files read in step 1 deleted. Photo images stay in their folders.
+ * A failure before step 3 (the log, or setting a file aside) deletes nothing, so the
+ * folders stay complete and the next run redoes the merge.
+ */
+public final class DayFolderMigration {
+    private DayFolderMigration() {}
+
+    public static final String CONTENT_FILE = "content.txt";
+    public static final String PHOTOS_FILE = "photos.json";
+    public static final String META_FILE = "meta.json";
+    /** Suffix of the files set aside because they could not be read. */
+    public static final String UNREADABLE_SUFFIX = ".unreadable";
+
+    /** What a run did. */
+    public static final class Result {
+        /** Days written to the log. */
+        public final int migrated;
+        /** Files set aside as unreadable, relative to the diary root (dd-MM-yyyy/meta.json). */
+        public final List<String> unreadable;
+
+        Result(int migrated, List<String> unreadable) {
+            this.migrated = migrated;
+            this.unreadable = Collections.unmodifiableList(unreadable);
+        }
+    }
+
+    /** A folder's day, and the files it was read from. */
+    private static final class FolderDay {
+        final int epochDay;
+        final JsonObject fields = new JsonObject();
+        final List<File> files = new ArrayList<>();
+        JsonObject stored;
+
+        FolderDay(int epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+
+    /**
+     * Migrate every day folder under {@code root} into {@code log}. Throws, deleting nothing,
+     * if the log cannot be read or written or an unreadable file cannot be set aside.
+     */
+    public static Result run(DayLog log, File root) throws IOException {
+        File[] folders = root.listFiles();
+        if (folders == null) return new Result(0, new ArrayList<>());
+
+        List<FolderDay> days = new ArrayList<>();
+        List<File> unreadable = new ArrayList<>();
+        for (File folder : folders) {
+            int epochDay = parseFolderName(folder.getName());
+            // Folders outside the log's range are left alone, like any other non-day folder
+            if (!DateKeys.inRange(epochDay) || !folder.isDirectory()) continue;
+            FolderDay day = readFolder(epochDay, folder, unreadable);
+            if (day.files.isEmpty()) continue;
+
+            byte[] existing = log.read(epochDay);
+            if (existing != null) {
+                JsonElement stored = parse(new String(existing, StandardCharsets.UTF_8), "day log record " + epochDay);
+                if (!stored.isJsonObject()) throw new IOException("Not a day object in the log: " + epochDay);
+                day.stored = stored.getAsJsonObject();
+            }
+            days.add(day);
+        }
+
+        // Renaming only moves the file aside, so doing it before any write keeps a failed run harmless
+        List<String> setAside = new ArrayList<>();
+        for (File file : unreadable) {
+            File target = new File(file.getParentFile(), file.getName() + UNREADABLE_SUFFIX);
+            for (int n = 1; target.exists(); n++) {
+                target = new File(file.getParentFile(), file.getName() + UNREADABLE_SUFFIX + "." + n);
+            }
+            if (!file.renameTo(target)) throw new IOException("Could not set aside " + file);
+            setAside.add(file.getParentFile().getName() + "/" + file.getName());
+        }
+
+        for (FolderDay folderDay : days) {
+            JsonObject merged = folderDay.stored != null ? folderDay.stored : new JsonObject();
+            for (Map.Entry<String, JsonElement> field : folderDay.fields.entrySet()) {
+                merged.add(field.getKey(), field.getValue());
+            }
+            if (!merged.has("content")) merged.addProperty("content", "");
+            if (!merged.has("photos")) merged.add("photos", new JsonArray());
+            log.write(folderDay.epochDay, merged.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (FolderDay folderDay : days) {
+            // A file that stays behind is harmless: its day is in the log, which is read from now on
+            for (File file : folderDay.files) {
+                file.delete();
+            }
+            // Only succeeds for folders without photos or set-aside files
+            folderDay.files.get(0).getParentFile().delete();
+        }
+        return new Result(days.size(), setAside);
+    }
+
+    /** The folder's readable fields; files that cannot be read or parsed go to {@code unreadable}. */
+    private static FolderDay readFolder(int epochDay, File folder, List<File> unreadable) {
+        FolderDay day = new FolderDay(epochDay);
+        File content = new File(folder, CONTENT_FILE);
+        File photos = new File(folder, PHOTOS_FILE);
+        File meta = new File(folder, META_FILE);
+
+        if (content.exists()) {
+            try {
+                day.fields.addProperty("content", readText(content));
+                day.files.add(content);
+            } catch (IOException e) {
+                unreadable.add(content);
+            }
+        }
+        if (photos.exists()) {
+            try {
+                JsonElement list = parse(readText(photos), photos.getPath());
+                if (!list.isJsonArray()) throw new IOException("Not a photo list: " + photos);
+                day.fields.add("photos", list);
+                day.files.add(photos);
+            } catch (IOException e) {
+                unreadable.add(photos);
+            }
+        }
+        if (meta.exists()) {
+            try {
+                JsonElement fields = parse(readText(meta), meta.getPath());
+                if (!fields.isJsonObject()) throw new IOException("Not a metadata object: " + meta);
+                for (Map.Entry<String, JsonElement> field : fields.getAsJsonObject().entrySet()) {
+                    if (!field.getValue().isJsonNull()) day.fields.add(field.getKey(), field.getValue());
+                }
+                day.files.add(meta);
+            } catch (IOException e) {
+                unreadable.add(meta);
+            }
+        }
+        return day;
+    }
+
+    // ========== Folder names ==========
+
+    /** dd-MM-yyyy, as formatDateFolder() in useFileStorage.ts. */
+    public static String folderName(int epochDay) {
+        int packed = DateKeys.toPackedKey(epochDay);
+        return String.format(Locale.ROOT, "%02d-%02d-%04d", packed % 100, packed / 100 % 100, packed / 10000);
+    }
+
+    /** Epoch day of a dd-MM-yyyy folder name, or {@link DateKeys#INVALID}. */
+    public static int parseFolderName(String name) {
+        if (name.length() != 10 || name.charAt(2) != '-' || name.charAt(5) != '-') return DateKeys.INVALID;
+        return DateKeys.parseDateKey(name.substring(6) + "-" + name.substring(3, 5) + "-" + name.substring(0, 2));
+    }
+
+    // ========== Files ==========
+
+    private static JsonElement parse(String json, String source) throws IOException {
+        try {
+            JsonElement element = JsonParser.parseString(json);
+            // An empty file parses as JsonNull
+            if (element.isJsonNull()) throw new IOException("Empty " + source);
+            return element;
+        } catch (JsonParseException e) {
+            throw new IOException("Unreadable " + source, e);
+        }
+    }
+
+    private static String readText(File file) throws IOException {
+        return new String(readBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(0, file.length()));
+            byte[] buffer = new byte[16 * 1024];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.krishna.dailyjournal.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Day-level diary storage: an append-only log of day records spread over numbered segment
+ * files, with an in-memory index from epoch day to the newest record of that day.
+ *
+ * Segment file NNNNNNNN.seg (big-endian):
+ *   magic "KCDL" (i32)  version (i32)  flags (i32), then per record:
+ *   epochDay (i32)  length (i32)  crc32 of payload (i32)  payload
+ *
+ * A write appends one record to the newest segment and forces it to disk before returning;
+ * the day's previous record becomes garbage. Opening the log reads each segment once, front
+ * to back, to rebuild the index, and cuts a torn record off the end of the newest segment.
+ * Compaction copies the live records in day order into a new segment flagged COMPACTED,
+ * which supersedes every lower-numbered segment, and then deletes those.
+ *
+ * Payloads are opaque bytes; the app stores one JSON object per day.
+ */
+public final class DayLog implements Closeable {
+
+    /** Receives live records from {@link #scan}. */
+    public interface Visitor {
+        void day(int epochDay, byte[] payload) throws IOException;
+    }
+
+    private static final int MAGIC = 0x4B43444C; // "KCDL"
+    private static final int VERSION = 1;
+    private static final int FLAG_COMPACTED = 1;
+    private static final int SEGMENT_HEADER = 12;
+    private static final int RECORD_HEADER = 12;
+    private static final String SUFFIX = ".seg";
+
+    // Compact once garbage is past this size and makes up over half the log
+    private static final long COMPACT_MIN_GARBAGE = 256 * 1024;
+    // Upper bound on one record, so a corrupt length is not read as a huge allocation
+    private static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+
+    private static final class Segment {
+        final int id;
+        final File file;
+        final FileChannel channel;
+        long size;
+
+        Segment(int id, File file, FileChannel channel, long size) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    private final File dir;
+    // Oldest first; appends go to the last one
+    private final List<Segment> segments = new ArrayList<>();
+
+    // Index by epochDay - firstDay: segment id << 32 | record offset (0 = no record), and
+    // payload length
+    private int firstDay;
+    private long[] locations = new long[0];
+    private int[] lengths = new int[0];
+    private int dayCount;
+
+    // Record bytes (headers included) in all segments, and in the indexed records only
+    private long totalBytes;
+    private long liveBytes;
+
+    private final CRC32 crc = new CRC32();
+
+    private DayLog(File dir) {
+        this.dir = dir;
+    }
+
+    /** Open the log in {@code dir}, creating it if needed. */
+    public static DayLog open(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        DayLog log = new DayLog(dir);
+        try {
+            log.load();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        return log;
+    }
+
+    // ========== Reads ==========
+
+    /** The newest payload stored for a day, or null. */
+    public synchronized byte[] read(int epochDay) throws IOException {
+        int i = epochDay - firstDay;
+        if (i < 0 || i >= locations.length || locations[i] == 0) return null;
+
+        long location = locations[i];
+        Segment segment = segment((int) (location >>> 32));
+        long offset = location & 0xFFFFFFFFL;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + lengths[i]);
+        readFully(segment.channel, record, offset);
+        record.flip();
+
+        int storedCrc = record.getInt(8);
+        byte[] payload = new byte[lengths[i]];
+        record.position(RECORD_HEADER);
+        record.get(payload);
+        if (checksum(payload, payload.length) != storedCrc) {
+            throw new IOException("Corrupt record for epoch day " + epochDay);
+        }
+        return payload;
+    }
+
+    public synchronized boolean contains(int epochDay) {
+        int i = epochDay - firstDay;
+        return i >= 0 && i < locations.length && locations[i] != 0;
+    }
+
+    /** Number of days with a record. */
+    public synchronized int size() {
+        return dayCount;
+    }
+
+    /** Every day with a record, ascending. */
+    public synchronized int[] days() {
+        int[] days = new int[dayCount];
+        int n = 0;
+        for (int i = 0; i < locations.length; i++) {
+            if (locations[i] != 0) days[n++] = firstDay + i;
+        }
+        return days;
+    }
+
+    /**
+     * Visit the newest record of every day, reading each segment once from start to end
+     * rather than seeking per day. Days come in storage order, which is day order right
+     * after a compaction and write order for everything appended since.
+     */
+    public synchronized void scan(Visitor visitor) throws IOException {
+        for (Segment segment : segments) {
+            scanSegment(segment, visitor, false);
+        }
+    }
+
+    // ========== Writes ==========
+
+    /**
+     * Store {@code payload} as the day's record, replacing any earlier one. The day must be
+     * within {@link DateKeys#inRange}, which bounds the index.
+     */
+    public synchronized void write(int epochDay, byte[] payload) throws IOException {
+        if (!DateKeys.inRange(epochDay)) {
+            throw new IOException("Epoch day " + epochDay + " is outside the stored range");
+        }
+        if (payload.length > MAX_PAYLOAD) {
+            throw new IOException("Record for epoch day " + epochDay + " is too large: " + payload.length);
+        }
+        Segment segment = segments.get(segments.size() - 1);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload.length);
+        record.putInt(epochDay).putInt(payload.length).putInt(checksum(payload, payload.length)).put(payload);
+        record.flip();
+
+        long offset = segment.size;
+        if (offset > 0xFFFFFFFFL - record.remaining()) {
+            // Only reachable with a log of several GB; start over in a compacted segment
+            compact();
+            segment = segments.get(segments.size() - 1);
+            offset = segment.size;
+        }
+        writeFully(segment.channel, record, offset);
+        segment.channel.force(false);
+        segment.size = offset + record.capacity();
+
+        index(epochDay, segment.id, offset, payload.length);
+        totalBytes += record.capacity();
+    }
+
+    // ========== Compaction ==========
+
+    /** Bytes held by records that have been replaced. */
+    public synchronized long garbageBytes() {
+        return totalBytes - liveBytes;
+    }
+
+    public synchronized boolean needsCompaction() {
+        long garbage = totalBytes - liveBytes;
+        return garbage >= COMPACT_MIN_GARBAGE && garbage * 2 > totalBytes;
+    }
+
+    /** Rewrite the live records, in day order, into one new segment. */
+    public synchronized void compact() throws IOException {
+        int id = segments.get(segments.size() - 1).id + 1;
+        File file = segmentFile(id);
+        File tmp = new File(dir, file.getName() + ".tmp");
+
+        long[] compacted = new long[locations.length];
+        long size = SEGMENT_HEADER;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            FileChannel out = raf.getChannel();
+            out.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(FLAG_COMPACTED);
+            header.flip();
+            writeFully(out, header, 0);
+
+            for (int i = 0; i < locations.length; i++) {
+                long location = locations[i];
+                if (location == 0) continue;
+                // Copied as stored, header and all; the old segment is still readable here
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + lengths[i]);
+                readFully(segment((int) (location >>> 32)).channel, record, location & 0xFFFFFFFFL);
+                record.flip();
+                compacted[i] = ((long) id << 32) | size;
+                writeFully(out, record, size);
+                size += record.capacity();
+            }
+            out.force(true);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not replace segments with " + file);
+        }
+
+        // From here the new segment supersedes the old ones, even if deleting them fails
+        for (Segment old : segments) {
+            old.channel.close();
+            old.file.delete();
+        }
+        segments.clear();
+        segments.add(openSegment(id, file));
+        locations = compacted;
+        totalBytes = liveBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    // ========== Loading ==========
+
+    private void load() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(".tmp")) {
+                    // An unfinished compaction; the segments it was copying are still there
+                    file.delete();
+                    continue;
+                }
+                int id = parseId(name);
+                if (id > 0) ids.add(id);
+            }
+        }
+        int[] sorted = new int[ids.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = ids.get(i);
+        Arrays.sort(sorted);
+
+        // Segments below the newest compacted one were merged into it
+        int base = 0;
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            if ((readFlags(segmentFile(sorted[i])) & FLAG_COMPACTED) != 0) {
+                base = i;
+                break;
+            }
+        }
+        for (int i = 0; i < base; i++) {
+            segmentFile(sorted[i]).delete();
+        }
+
+        if (base == sorted.length) {
+            segments.add(openSegment(1, segmentFile(1)));
+            return;
+        }
+        for (int i = base; i < sorted.length; i++) {
+            segments.add(openSegment(sorted[i], segmentFile(sorted[i])));
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            scanSegment(segments.get(i), null, i == segments.size() - 1);
+        }
+    }
+
+    private Segment openSegment(int id, File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel();
+        long size = channel.size();
+        if (size < SEGMENT_HEADER) {
+            // New, or created by a write that did not get past the header
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(0);
+            header.flip();
+            channel.truncate(0);
+            writeFully(channel, header, 0);
+            channel.force(true);
+            size = SEGMENT_HEADER;
+        }
+        return new Segment(id, file, channel, size);
+    }
+
+    /**
+     * Read one segment sequentially. With no visitor, every record is added to the index;
+     * otherwise only records the index points at are passed on. A record that is cut short
+     * or fails its checksum ends the segment: in the newest one (a write interrupted by a
+     * crash) the file is truncated there, in older ones the rest is left unread.
+     */
+    private void scanSegment(Segment segment, Visitor visitor, boolean newest) throws IOException {
+        long offset = SEGMENT_HEADER;
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(segment.file), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognised segment " + segment.file);
+            }
+            in.readInt(); // flags
+
+            byte[] buffer = new byte[4096];
+            while (offset < segment.size) {
+                int epochDay;
+                int length;
+                int storedCrc;
+                try {
+                    epochDay = in.readInt();
+                    length = in.readInt();
+                    storedCrc = in.readInt();
+                    if (length < 0 || length > MAX_PAYLOAD) break;
+                    if (buffer.length < length) buffer = new byte[Math.max(length, buffer.length * 2)];
+                    in.readFully(buffer, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (checksum(buffer, length) != storedCrc) break;
+
+                if (visitor == null) {
+                    // Days outside the stored range are left out of the index, as garbage
+                    if (DateKeys.inRange(epochDay)) index(epochDay, segment.id, offset, length);
+                    totalBytes += RECORD_HEADER + length;
+                } else {
+                    int i = epochDay - firstDay;
+                    long location = ((long) segment.id << 32) | offset;
+                    if (i >= 0 && i < locations.length && locations[i] == location) {
+                        visitor.day(epochDay, Arrays.copyOf(buffer, length));
+                    }
+                }
+                offset += RECORD_HEADER + length;
+            }
+        }
+
+        if (offset < segment.size && visitor == null && newest) {
+            segment.channel.truncate(offset);
+            segment.channel.force(true);
+            segment.size = offset;
+        }
+    }
+
+    private static int readFlags(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != MAGIC) return 0;
+            in.readInt(); // version
+            return in.readInt();
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    // ========== Index ==========
+
+    private void index(int epochDay, int segmentId, long offset, int length) {
+        int i = epochDay - firstDay;
+        if (locations.length == 0 || i < 0 || i >= locations.length) {
+            grow(epochDay);
+            i = epochDay - firstDay;
+        }
+        if (locations[i] == 0) {
+            dayCount++;
+        } else {
+            liveBytes -= RECORD_HEADER + lengths[i];
+        }
+        locations[i] = ((long) segmentId << 32) | offset;
+        lengths[i] = length;
+        liveBytes += RECORD_HEADER + length;
+    }
+
+    // Widen the index to cover epochDay, with a year of headroom in that direction
+    private void grow(int epochDay) {
+        if (locations.length == 0) {
+            firstDay = epochDay - 365;
+            locations = new long[366 + 366];
+            lengths = new int[locations.length];
+            return;
+        }
+        int first = Math.min(firstDay, epochDay - 365);
+        int end = Math.max(firstDay + locations.length, epochDay + 366);
+        long[] newLocations = new long[end - first];
+        int[] newLengths = new int[end - first];
+        System.arraycopy(locations, 0, newLocations, firstDay - first, locations.length);
+        System.arraycopy(lengths, 0, newLengths, firstDay - first, lengths.length);
+        firstDay = first;
+        locations = newLocations;
+        lengths = newLengths;
+    }
+
+    // ========== Files ==========
+
+    private Segment segment(int id) throws IOException {
+        for (Segment segment : segments) {
+            if (segment.id == id) return segment;
+        }
+        throw new IOException("Missing segment " + id);
+    }
+
+    private File segmentFile(int id) {
+        return new File(dir, String.format(Locale.ROOT, "%08d", id) + SUFFIX);
+    }
+
+    private static int parseId(String name) {
+        if (name.length() != 8 + SUFFIX.length() || !name.endsWith(SUFFIX)) return -1;
+        int id = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private int checksum(byte[] bytes, int length) {
+        crc.reset();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new EOFException();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.krishna.dailyjournal.core;
+
+import java.nio.IntBuffer;
+
+/**
+ * Incremental diary statistics: total entries, total words and the current streak.
+ *
+ * Per-day word counts and entry flags are kept in one int per day (words << 1 | hasEntry),
+ * indexed by epoch day. Applying a day moves the totals by the delta and adjusts the run
+ * of consecutive entry days ending at the latest entry in place, so reading the streak is
+ * O(1) as long as that run ends today or yesterday. Not thread-safe.
+ */
+public final class DiaryStats {
+    /** {@link #applyDay} results. */
+    public static final int UNCHANGED = 0;
+    public static final int UPDATED = 1;
+    /** The day fell outside the stored range, which moved or grew. */
+    public static final int RESIZED = 2;
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private int firstEpochDay;
+    private int[] days = new int[0];
+
+    private int totalEntries;
+    private long totalWords;
+    // Latest day with an entry and the number of consecutive entry days ending there
+    private int runEnd = NONE;
+    private int runLength;
+
+    // ========== Queries ==========
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+
+    public int getTotalEntries() {
+        return totalEntries;
+    }
+
+    public long getTotalWords() {
+        return totalWords;
+    }
+
+    /**
+     * Consecutive entry days ending today, or ending yesterday when today has no entry yet.
+     */
+    public int getStreak(int todayEpochDay) {
+        int end = hasEntry(todayEpochDay) ? todayEpochDay : todayEpochDay - 1;
+        if (end == runEnd) return runLength;
+        // Only reached when there are entries after today or the streak is broken
+        return runLengthEndingAt(end);
+    }
+
+    public int getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    public int getDayCount() {
+        return days.length;
+    }
+
+    /** The stored record for a day (words << 1 | hasEntry), 0 outside the range. */
+    public int recordAt(int epochDay) {
+        int index = epochDay - firstEpochDay;
+        return index >= 0 && index < days.length ? days[index] : 0;
+    }
+
+    /** Copy every record, starting at {@link #getFirstEpochDay}, into {@code out}. */
+    public void writeRecords(IntBuffer out) {
+        out.put(days);
+    }
+
+    // ========== Updates ==========
+
+    /**
+     * Apply the current state of one day. A day is an entry when it has any words or photos,
+     * matching syncAllWidgetData.ts.
+     *
+     * @return {@link #UNCHANGED}, {@link #UPDATED} or {@link #RESIZED}
+     */
+    public int applyDay(int epochDay, CharSequence content, boolean hasPhotos) {
+        int record = record(content, hasPhotos);
+        if (record == recordAt(epochDay)) return UNCHANGED;
+
+        boolean grew = ensureRange(epochDay);
+        set(epochDay, record);
+        return grew ? RESIZED : UPDATED;
+    }
+
+    /**
+     * Replace every stored day, e.g. on first run or after a restore.
+     */
+    public void rebuild(int[] epochDays, CharSequence[] contents, boolean[] hasPhotos) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int day : epochDays) {
+            min = Math.min(min, day);
+            max = Math.max(max, day);
+        }
+        clear(epochDays.length > 0 ? min : 0, epochDays.length > 0 ? max - min + 1 : 0);
+        for (int i = 0; i < epochDays.length; i++) {
+            set(epochDays[i], record(contents[i], hasPhotos[i]));
+        }
+    }
+
+    /**
+     * Replace every stored day with raw records, e.g. when loading them from disk.
+     */
+    public void load(int firstEpochDay, int[] records) {
+        clear(firstEpochDay, records.length);
+        for (int i = 0; i < records.length; i++) {
+            set(firstEpochDay + i, records[i]);
+        }
+    }
+
+    private void clear(int first, int count) {
+        firstEpochDay = first;
+        days = new int[count];
+        totalEntries = 0;
+        totalWords = 0;
+        runEnd = NONE;
+        runLength = 0;
+    }
+
+    private static int record(CharSequence content, boolean hasPhotos) {
+        int words = countWords(content);
+        return (words << 1) | (words > 0 || hasPhotos ? 1 : 0);
+    }
+
+    private void set(int epochDay, int record) {
+        int index = epochDay - firstEpochDay;
+        int old = days[index];
+        days[index] = record;
+
+        totalWords += (record >>> 1) - (old >>> 1);
+        boolean was = (old & 1) != 0;
+        boolean is = (record & 1) != 0;
+        if (was == is) return;
+
+        if (is) {
+            totalEntries++;
+            if (runEnd == NONE || epochDay > runEnd) {
+                runLength = epochDay == runEnd + 1 ? runLength + 1 : 1;
+                runEnd = epochDay;
+            } else if (epochDay == runEnd - runLength) {
+                // Joins the run at its start, possibly bridging to an earlier one
+                runLength += 1 + runLengthEndingAt(epochDay - 1);
+            }
+        } else {
+            totalEntries--;
+            if (epochDay == runEnd) {
+                if (runLength > 1) {
+                    runEnd--;
+                    runLength--;
+                } else {
+                    runEnd = latestEntryBefore(epochDay);
+                    runLength = runEnd == NONE ? 0 : runLengthEndingAt(runEnd);
+                }
+            } else if (epochDay > runEnd - runLength) {
+                runLength = runEnd - epochDay;
+            }
+        }
+    }
+
+    // ========== Day records ==========
+
+    private boolean hasEntry(int epochDay) {
+        return (recordAt(epochDay) & 1) != 0;
+    }
+
+    private int runLengthEndingAt(int epochDay) {
+        int length = 0;
+        while (hasEntry(epochDay - length)) length++;
+        return length;
+    }
+
+    private int latestEntryBefore(int epochDay) {
+        for (int day = Math.min(epochDay - 1, firstEpochDay + days.length - 1); day >= firstEpochDay; day--) {
+            if (hasEntry(day)) return day;
+        }
+        return NONE;
+    }
+
+    /** Grow the record array to include {@code epochDay}; returns true if it moved or grew. */
+    private boolean ensureRange(int epochDay) {
+        if (days.length == 0) {
+            firstEpochDay = epochDay;
+            days = new int[1];
+            return true;
+        }
+        int lastEpochDay = firstEpochDay + days.length - 1;
+        if (epochDay >= firstEpochDay && epochDay <= lastEpochDay) return false;
+
+        int newFirst = Math.min(firstEpochDay, epochDay);
+        int newLast = Math.max(lastEpochDay, epochDay);
+        int[] grown = new int[newLast - newFirst + 1];
+        System.arraycopy(days, 0, grown, firstEpochDay - newFirst, days.length);
+        days = grown;
+        firstEpochDay = newFirst;
+        return true;
+    }
+
+    // ========== Word count ==========
+
+    /**
+     * Number of whitespace-separated words, the same as text.trim().split(/\s+/) in JS,
+     * without allocating.
+     */
+    public static int countWords(CharSequence text) {
+        if (text == null) return 0;
+        int words = 0;
+        boolean inWord = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            if (isSpace(text.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                words++;
+            }
+        }
+        return words;
+    }
+
+    // JS \s: ASCII whitespace, Unicode space separators, line/paragraph separators and BOM
+    private static boolean isSpace(char c) {
+        if (c <= ' ') {
+            return c == ' ' || (c >= '\t' && c <= '\r');
+        }
+        return c == '\uFEFF' || Character.isSpaceChar(c);
+    }
+}
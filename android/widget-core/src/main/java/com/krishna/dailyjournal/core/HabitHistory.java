@@ -0,0 +1,222 @@
+package com.krishna.dailyjournal.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-habit completion history: one {@link BitSet} per habit id, bit n = completed on
+ * epoch day BASE_EPOCH_DAY + n. Streaks, rolling rates and a day's completion fraction are
+ * answered with BitSet scans (a word at a time), not by walking the diary.
+ *
+ * Serialized big-endian (DataOutput):
+ *   magic "KCHI"  version  habitCount, then per habit:
+ *   active (bool)  id (UTF)  firstWord (i32)  wordCount (i32)  words (i64)...
+ * Leading all-zero words are not stored. Not thread-safe.
+ */
+public final class HabitHistory {
+    private static final int MAGIC = 0x4B434849; // "KCHI"
+    private static final int VERSION = 1;
+    /** 2000-01-01; completions before it are ignored. */
+    public static final int BASE_EPOCH_DAY = 10957;
+    /**
+     * Days tracked from BASE_EPOCH_DAY (about 300 years), so a corrupt word count in a file
+     * cannot ask for an arbitrarily large array.
+     */
+    public static final int MAX_DAYS = 300 * 366;
+    private static final int MAX_WORDS = (MAX_DAYS + 63) / 64;
+
+    // Habit id -> completions; insertion order is the app's habit order
+    private final Map<String, Habit> habits = new LinkedHashMap<>();
+
+    private static final class Habit {
+        final BitSet days = new BitSet();
+        boolean active;
+        // Cached until the habit changes; -1 = not computed
+        int longestStreak = -1;
+    }
+
+    // ========== Updates ==========
+
+    /**
+     * Set the app's current habit list. Habits missing from it keep their history but no
+     * longer count towards day fractions.
+     */
+    public boolean setActiveHabits(Collection<String> ids) {
+        boolean changed = false;
+        for (Map.Entry<String, Habit> e : habits.entrySet()) {
+            boolean active = ids.contains(e.getKey());
+            if (e.getValue().active != active) {
+                e.getValue().active = active;
+                changed = true;
+            }
+        }
+        for (String id : ids) {
+            if (!habits.containsKey(id)) {
+                habit(habits, id).active = true;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Record which habits were completed on one day; every other known habit is cleared.
+     * Days outside the tracked range are ignored.
+     */
+    public boolean setDay(int epochDay, Collection<String> completedIds) {
+        int bit = epochDay - BASE_EPOCH_DAY;
+        if (bit < 0 || bit >= MAX_DAYS) return false;
+
+        boolean changed = false;
+        for (String id : completedIds) {
+            if (!habits.containsKey(id)) habit(habits, id);
+        }
+        for (Map.Entry<String, Habit> e : habits.entrySet()) {
+            Habit habit = e.getValue();
+            boolean done = completedIds.contains(e.getKey());
+            if (habit.days.get(bit) != done) {
+                habit.days.set(bit, done);
+                habit.longestStreak = -1;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public void clear() {
+        habits.clear();
+    }
+
+    private static Habit habit(Map<String, Habit> habits, String id) {
+        Habit habit = habits.get(id);
+        if (habit == null) {
+            habit = new Habit();
+            habits.put(id, habit);
+        }
+        return habit;
+    }
+
+    // ========== Queries ==========
+
+    public String[] getActiveHabitIds() {
+        int count = 0;
+        for (Habit habit : habits.values()) {
+            if (habit.active) count++;
+        }
+        String[] ids = new String[count];
+        int i = 0;
+        for (Map.Entry<String, Habit> e : habits.entrySet()) {
+            if (e.getValue().active) ids[i++] = e.getKey();
+        }
+        return ids;
+    }
+
+    /**
+     * Consecutive completed days ending today, or ending yesterday when today is not done yet.
+     */
+    public int getCurrentStreak(String id, int todayEpochDay) {
+        Habit habit = habits.get(id);
+        if (habit == null) return 0;
+        int today = todayEpochDay - BASE_EPOCH_DAY;
+        int end = today >= 0 && habit.days.get(today) ? today : today - 1;
+        if (end < 0 || !habit.days.get(end)) return 0;
+        return end - habit.days.previousClearBit(end);
+    }
+
+    public int getLongestStreak(String id) {
+        Habit habit = habits.get(id);
+        if (habit == null) return 0;
+        if (habit.longestStreak < 0) {
+            int longest = 0;
+            for (int start = habit.days.nextSetBit(0); start >= 0; ) {
+                int end = habit.days.nextClearBit(start);
+                longest = Math.max(longest, end - start);
+                start = habit.days.nextSetBit(end);
+            }
+            habit.longestStreak = longest;
+        }
+        return habit.longestStreak;
+    }
+
+    /**
+     * Fraction (0-1) of the {@code windowDays} days ending on {@code todayEpochDay} on which
+     * the habit was completed.
+     */
+    public float getRate(String id, int todayEpochDay, int windowDays) {
+        Habit habit = habits.get(id);
+        if (habit == null || windowDays <= 0) return 0f;
+        int to = todayEpochDay - BASE_EPOCH_DAY + 1;
+        int from = Math.max(0, to - windowDays);
+        if (to <= 0) return 0f;
+        return habit.days.get(from, to).cardinality() / (float) windowDays;
+    }
+
+    /** Fraction (0-1) of the active habits completed on a day, or 0 with no habits. */
+    public float getDayFraction(int epochDay) {
+        int bit = epochDay - BASE_EPOCH_DAY;
+        int active = 0;
+        int done = 0;
+        for (Habit habit : habits.values()) {
+            if (!habit.active) continue;
+            active++;
+            if (bit >= 0 && habit.days.get(bit)) done++;
+        }
+        return active == 0 ? 0f : done / (float) active;
+    }
+
+    // ========== Serialization ==========
+
+    /**
+     * Replace the history with one read from {@code in}. Throws, leaving the history as it
+     * was, if the data is unrecognised, cut short or has a word range past MAX_DAYS.
+     */
+    public void read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unrecognised habit history");
+        }
+        Map<String, Habit> loaded = new LinkedHashMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            boolean active = in.readBoolean();
+            String id = in.readUTF();
+            int firstWord = in.readInt();
+            int wordCount = in.readInt();
+            if (firstWord < 0 || wordCount < 0 || wordCount > MAX_WORDS - firstWord) {
+                throw new IOException("Bad word range " + firstWord + "+" + wordCount + " for habit " + id);
+            }
+            long[] words = new long[firstWord + wordCount];
+            for (int w = 0; w < wordCount; w++) {
+                words[firstWord + w] = in.readLong();
+            }
+            Habit habit = habit(loaded, id);
+            habit.active = active;
+            habit.days.or(BitSet.valueOf(words));
+        }
+        habits.clear();
+        habits.putAll(loaded);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(habits.size());
+        for (Map.Entry<String, Habit> e : habits.entrySet()) {
+            long[] words = e.getValue().days.toLongArray();
+            int firstWord = 0;
+            while (firstWord < words.length && words[firstWord] == 0) firstWord++;
+
+            out.writeBoolean(e.getValue().active);
+            out.writeUTF(e.getKey());
+            out.writeInt(firstWord);
+            out.writeInt(words.length - firstWord);
+            for (int w = firstWord; w < words.length; w++) {
+                out.writeLong(words[w]);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.krishna.dailyjournal.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped reader for widget-data.bin, the compact companion of widget-data.json.
+ *
+ * Layout (little-endian), written by widgetsBridge.ts:
+ *   0  magic "KCWB"          4  version (u16)      6  header size (u16)
+ *   8  sequence (i64)       16  habitsCompleted    20  habitsTotal
+ *  24  habitsDate epochDay  28  statsEntries       32  statsStreak
+ *  36  statsWords           40  themeColor (ARGB)  44  flags (bit0 = has theme)
+ *  48  firstEpochDay        52  dayCount           56  day records...
+ *
+ * Each day record is one byte indexed by (epochDay - firstEpochDay):
+ * bits 0-6 = habit progress (0-100), bit 7 = has diary entry.
+ */
+public final class WidgetBinaryData {
+    public static final String FILE_NAME = "widget-data.bin";
+
+    private static final int MAGIC = 0x4257434B; // "KCWB" read little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 56;
+    private static final int FLAG_HAS_THEME = 1;
+
+    private final ByteBuffer buffer;
+
+    public final long sequence;
+    public final int firstEpochDay;
+    public final int dayCount;
+
+    private WidgetBinaryData(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.sequence = buffer.getLong(8);
+        this.firstEpochDay = buffer.getInt(48);
+        this.dayCount = buffer.getInt(52);
+    }
+
+    /**
+     * Map the file read-only. Returns null if it is missing, truncated or of an unknown version.
+     */
+    public static WidgetBinaryData open(File file) {
+        if (file == null || !file.exists() || file.length() < HEADER_SIZE) return null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // The mapping stays valid after the channel is closed.
+            return wrap(buffer);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Read an in-memory encoding (see {@link #encode}). Returns null if it is malformed.
+     */
+    public static WidgetBinaryData wrap(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE
+            || buffer.getInt(0) != MAGIC
+            || (buffer.getShort(4) & 0xFFFF) != VERSION) {
+            return null;
+        }
+        int headerSize = buffer.getShort(6) & 0xFFFF;
+        int dayCount = buffer.getInt(52);
+        if (headerSize != HEADER_SIZE || dayCount < 0 || HEADER_SIZE + (long) dayCount > buffer.capacity()) {
+            return null;
+        }
+        return new WidgetBinaryData(buffer);
+    }
+
+    /**
+     * Encode the layout above; the Java twin of encodeWidgetBinary in widgetsBridge.ts.
+     *
+     * @param habitsEpochDay epoch day of habitsDate, or -1 for none
+     * @param days one record per day starting at {@code firstEpochDay}
+     */
+    public static ByteBuffer encode(
+        long sequence,
+        int habitsCompleted,
+        int habitsTotal,
+        int habitsEpochDay,
+        int statsEntries,
+        int statsStreak,
+        int statsWords,
+        boolean hasThemeColor,
+        int themeColor,
+        int firstEpochDay,
+        byte[] days
+    ) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + days.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) VERSION);
+        buffer.putShort(6, (short) HEADER_SIZE);
+        buffer.putLong(8, sequence);
+        buffer.putInt(16, habitsCompleted);
+        buffer.putInt(20, habitsTotal);
+        buffer.putInt(24, habitsEpochDay);
+        buffer.putInt(28, statsEntries);
+        buffer.putInt(32, statsStreak);
+        buffer.putInt(36, statsWords);
+        buffer.putInt(40, hasThemeColor ? themeColor : 0);
+        buffer.putInt(44, hasThemeColor ? FLAG_HAS_THEME : 0);
+        buffer.putInt(48, days.length > 0 ? firstEpochDay : 0);
+        buffer.putInt(52, days.length);
+        for (int i = 0; i < days.length; i++) {
+            buffer.put(HEADER_SIZE + i, days[i]);
+        }
+        return buffer;
+    }
+
+    public static byte record(int habitProgress, boolean hasEntry) {
+        return (byte) (Math.max(0, Math.min(100, habitProgress)) | (hasEntry ? 0x80 : 0));
+    }
+
+    /** Write the whole encoding to {@code file}. */
+    public void writeTo(File file) throws IOException {
+        ByteBuffer copy = buffer.duplicate();
+        copy.clear();
+        try (FileOutputStream out = new FileOutputStream(file);
+             FileChannel channel = out.getChannel()) {
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+        }
+    }
+
+    // ========== Header ==========
+
+    public int getHabitsCompleted() {
+        return buffer.getInt(16);
+    }
+
+    public int getHabitsTotal() {
+        return buffer.getInt(20);
+    }
+
+    /** Habits date as a YYYY-MM-DD key, or "" when the app has not recorded one. */
+    public String getHabitsDate() {
+        int epochDay = buffer.getInt(24);
+        return epochDay < 0 ? "" : DateKeys.toDateKey(epochDay);
+    }
+
+    public int getStatsEntries() {
+        return buffer.getInt(28);
+    }
+
+    public int getStatsStreak() {
+        return buffer.getInt(32);
+    }
+
+    public int getStatsWords() {
+        return buffer.getInt(36);
+    }
+
+    public boolean hasThemeColor() {
+        return (buffer.getInt(44) & FLAG_HAS_THEME) != 0;
+    }
+
+    public int getThemeColor() {
+        return buffer.getInt(40);
+    }
+
+    // ========== Day records ==========
+
+    /**
+     * Copy the raw day records of one month into {@code out} (index 0 = day 1).
+     * Days outside the stored range read as 0. Returns the number of days in the month.
+     *
+     * @param month 0-based, like java.util.Calendar
+     */
+    public int readMonth(int year, int month, byte[] out) {
+        int start = DateKeys.epochDay(year, month + 1, 1);
+        int days = DateKeys.daysInMonth(year, month + 1);
+        for (int i = 0; i < days; i++) {
+            int index = start + i - firstEpochDay;
+            out[i] = (index >= 0 && index < dayCount) ? buffer.get(HEADER_SIZE + index) : 0;
+        }
+        return days;
+    }
+
+    public static int progress(byte record) {
+        return record & 0x7F;
+    }
+
+    public static boolean hasEntry(byte record) {
+        return (record & 0x80) != 0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.krishna.dailyjournal.core;
+
+/**
+ * Fields of widget-data.json as read by {@link WidgetDataParser}. When the JSON is backed
+ * by a current widget-data.bin only the text fields are read; see {@link #isBackedBy}.
+ */
+public final class WidgetData {
+    public final long sequence;
+    public final int habitsCompleted;
+    public final int habitsTotal;
+    public final String habitsDate;
+    public final String todaySnippet;
+    public final String todayDate;
+    public final int statsEntries;
+    public final int statsStreak;
+    public final int statsWords;
+    /** Theme colour as written by the app (e.g. "#7C3AED"), or null. */
+    public final String themeColor;
+    /** The requested month of calendarDays; null when it came from the binary instead. */
+    public final CalendarMonth calendarMonth;
+
+    WidgetData(
+        long sequence,
+        int habitsCompleted,
+        int habitsTotal,
+        String habitsDate,
+        String todaySnippet,
+        String todayDate,
+        int statsEntries,
+        int statsStreak,
+        int statsWords,
+        String themeColor,
+        CalendarMonth calendarMonth
+    ) {
+        this.sequence = sequence;
+        this.habitsCompleted = habitsCompleted;
+        this.habitsTotal = habitsTotal;
+        this.habitsDate = habitsDate;
+        this.todaySnippet = todaySnippet;
+        this.todayDate = todayDate;
+        this.statsEntries = statsEntries;
+        this.statsStreak = statsStreak;
+        this.statsWords = statsWords;
+        this.themeColor = themeColor;
+        this.calendarMonth = calendarMonth;
+    }
+
+    /** The binary is only trusted when it was written together with this JSON. */
+    public boolean isBackedBy(WidgetBinaryData binary) {
+        return isCurrent(binary, sequence);
+    }
+
+    static boolean isCurrent(WidgetBinaryData binary, long sequence) {
+        return binary != null && sequence >= 0 && binary.sequence == sequence;
+    }
+}
@@ -0,0 +1,274 @@
+package com.krishna.dailyjournal.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming parser for widget-data.json: scalar fields are read directly and only the
+ * requested month of calendarDays is materialised, every other day is skipped.
+ */
+public final class WidgetDataParser {
+    private WidgetDataParser() {}
+
+    /**
+     * Parse the whole file, keeping one month of calendar days (0-based month).
+     * When {@code binary} was written with this JSON, stats, habits, theme and calendar days
+     * are left to it and the JSON is read only up to the text fields at its head.
+     */
+    public static WidgetData parse(Reader in, WidgetBinaryData binary, int year, int month)
+        throws IOException {
+        long sequence = -1L;
+        int habitsCompleted = 0;
+        int habitsTotal = 0;
+        String habitsDate = "";
+        String todaySnippet = null;
+        String todayDate = null;
+        int statsEntries = 0;
+        int statsStreak = 0;
+        int statsWords = 0;
+        String themeHex = null;
+        CalendarMonth calendarMonth = null;
+
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "sequence": sequence = nextLong(reader, -1L); break;
+                    case "habitsCompleted": habitsCompleted = nextInt(reader, 0); break;
+                    case "habitsTotal": habitsTotal = nextInt(reader, 0); break;
+                    case "habitsDate": habitsDate = nextString(reader, ""); break;
+                    case "todaySnippet": todaySnippet = nextString(reader, ""); break;
+                    case "todayDate": todayDate = nextString(reader, ""); break;
+                    case "statsEntries": statsEntries = nextInt(reader, 0); break;
+                    case "statsStreak": statsStreak = nextInt(reader, 0); break;
+                    case "statsWords": statsWords = nextInt(reader, 0); break;
+                    case "themeColor": themeHex = nextString(reader, null); break;
+                    case "calendarDays":
+                        if (WidgetData.isCurrent(binary, sequence)) {
+                            reader.skipValue();
+                        } else {
+                            calendarMonth = readCalendarMonth(reader, year, month);
+                        }
+                        break;
+                    default: reader.skipValue(); break;
+                }
+
+                // The binary covers everything else; stop once the text fields are in.
+                if (WidgetData.isCurrent(binary, sequence) && todaySnippet != null && todayDate != null) break;
+            }
+        }
+
+        if (!WidgetData.isCurrent(binary, sequence) && calendarMonth == null) {
+            calendarMonth = new CalendarMonth(year, month);
+        }
+        return new WidgetData(
+            sequence,
+            habitsCompleted,
+            habitsTotal,
+            habitsDate,
+            todaySnippet != null ? todaySnippet : "",
+            todayDate != null ? todayDate : "",
+            statsEntries,
+            statsStreak,
+            statsWords,
+            themeHex,
+            calendarMonth
+        );
+    }
+
+    /**
+     * Stream the file and return only the requested month's calendar days.
+     */
+    public static CalendarMonth readCalendarMonth(Reader in, int year, int month) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("calendarDays".equals(reader.nextName())) {
+                    return readCalendarMonth(reader, year, month);
+                }
+                reader.skipValue();
+            }
+        }
+        return new CalendarMonth(year, month);
+    }
+
+    /**
+     * Stream the file once, copying every calendar day from {@code firstEpochDay} on into
+     * {@code records} (index 0 = firstEpochDay) as widget-data.bin day records, so a span of
+     * months costs one pass instead of one per month. Days without data are left at 0.
+     */
+    public static void readCalendarDays(Reader in, int firstEpochDay, byte[] records) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("calendarDays".equals(reader.nextName())) {
+                    readCalendarDays(reader, firstEpochDay, records);
+                    return;
+                }
+                reader.skipValue();
+            }
+        }
+    }
+
+    /**
+     * One month out of day records filled by {@link #readCalendarDays}; days outside
+     * {@code records} read as empty.
+     */
+    public static CalendarMonth calendarMonth(byte[] records, int firstEpochDay, int year, int month) {
+        CalendarMonth result = new CalendarMonth(year, month);
+        int start = DateKeys.epochDay(year, month + 1, 1) - firstEpochDay;
+        for (int day = 1; day <= result.daysInMonth; day++) {
+            int index = start + day - 1;
+            if (index < 0 || index >= records.length || records[index] == 0) continue;
+            result.set(day, WidgetBinaryData.progress(records[index]), WidgetBinaryData.hasEntry(records[index]));
+        }
+        return result;
+    }
+
+    /**
+     * Read one month of calendar days from the mapped binary: a single bounded slice,
+     * no string parsing.
+     */
+    public static CalendarMonth readCalendarMonth(WidgetBinaryData binary, int year, int month) {
+        CalendarMonth result = new CalendarMonth(year, month);
+        byte[] records = new byte[31];
+        int days = binary.readMonth(year, month, records);
+        for (int i = 0; i < days; i++) {
+            byte record = records[i];
+            if (record == 0) continue;
+            result.set(i + 1, WidgetBinaryData.progress(record), WidgetBinaryData.hasEntry(record));
+        }
+        return result;
+    }
+
+    /**
+     * Consume the calendarDays object, keeping only keys in the requested month.
+     * Day records outside the month are skipped without being materialised.
+     */
+    private static CalendarMonth readCalendarMonth(JsonReader reader, int year, int month)
+        throws IOException {
+        CalendarMonth result = new CalendarMonth(year, month);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return result;
+        }
+
+        // Packed yyyymm of the month, compared against each key's yyyymmdd / 100
+        int monthKey = year * 100 + month + 1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int dateKey = DateKeys.parsePackedKey(reader.nextName());
+            if (dateKey == DateKeys.INVALID
+                || dateKey / 100 != monthKey
+                || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            byte record = readDayRecord(reader);
+            result.set(dateKey % 100, WidgetBinaryData.progress(record), WidgetBinaryData.hasEntry(record));
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * Consume the calendarDays object, keeping the days that fall inside {@code records}.
+     */
+    private static void readCalendarDays(JsonReader reader, int firstEpochDay, byte[] records)
+        throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int dateKey = DateKeys.parsePackedKey(reader.nextName());
+            int year = dateKey / 10000;
+            int month = dateKey / 100 % 100;
+            // Days past the month's end (e.g. 02-31) are dropped, as in the month parser
+            int index = dateKey == DateKeys.INVALID || dateKey % 100 > DateKeys.daysInMonth(year, month)
+                ? -1
+                : DateKeys.epochDay(year, month, dateKey % 100) - firstEpochDay;
+            if (index < 0 || index >= records.length || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            records[index] = readDayRecord(reader);
+        }
+        reader.endObject();
+    }
+
+    // One day object ({habitProgress, hasEntry}) as a widget-data.bin day record
+    private static byte readDayRecord(JsonReader reader) throws IOException {
+        int habitProgress = 0;
+        boolean hasEntry = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if ("habitProgress".equals(field)) {
+                habitProgress = nextInt(reader, 0);
+            } else if ("hasEntry".equals(field)) {
+                hasEntry = nextBoolean(reader, false);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return WidgetBinaryData.record(habitProgress, hasEntry);
+    }
+
+    // ========== Streaming helpers ==========
+
+    // Lenient like JSONObject.optInt: accepts doubles and numeric strings, defaults otherwise.
+    private static int nextInt(JsonReader reader, int fallback) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return fallback;
+        }
+        // Consume as a string first so a malformed value never leaves the reader mid-token.
+        String raw = reader.nextString();
+        try {
+            return (int) Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static long nextLong(JsonReader reader, long fallback) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return fallback;
+        }
+        String raw = reader.nextString();
+        try {
+            return (long) Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static String nextString(JsonReader reader, String fallback) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return fallback;
+    }
+
+    private static boolean nextBoolean(JsonReader reader, boolean fallback) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        reader.skipValue();
+        return fallback;
+    }
+}
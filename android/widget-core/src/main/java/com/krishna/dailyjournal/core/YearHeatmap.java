@@ -0,0 +1,72 @@
+package com.krishna.dailyjournal.core;
+
+/**
+ * Layout and data of the year heatmap widget: 53 week columns x 7 weekday rows, weeks
+ * starting on Saturday like {@link CalendarGrid}, ending with the week that contains today.
+ *
+ * The data is one intensity level per cell in a byte[] indexed by days since the grid's
+ * first day (column = index / 7, row = index % 7), so a renderer walks it once in order
+ * without any date math.
+ */
+public final class YearHeatmap {
+    private YearHeatmap() {}
+
+    public static final int WEEKS = 53;
+    public static final int ROWS = 7;
+    public static final int CELLS = WEEKS * ROWS;
+
+    /** Highest intensity: an entry plus all habits done. */
+    public static final int MAX_LEVEL = 4;
+    /** Level of the cells after today in the last column. */
+    public static final byte FUTURE = -1;
+
+    /** Where the grid's months come from, e.g. a snapshot's calendar index. */
+    public interface MonthSource {
+        CalendarMonth month(int year, int month); // 0-based month
+    }
+
+    /**
+     * Epoch day of the grid's first cell (top-left) when today is {@code todayEpochDay}.
+     * It moves by a whole week when a new week starts, and stays put otherwise.
+     */
+    public static int firstEpochDay(int todayEpochDay) {
+        // Same weekday numbering as CalendarGrid.startOffset: Saturday = 0
+        int row = Math.floorMod(todayEpochDay + 5, ROWS);
+        return todayEpochDay - row - (WEEKS - 1) * ROWS;
+    }
+
+    /** Intensity 0-4 of one day: an entry counts 2, habit progress up to 2 more. */
+    public static int level(int habitProgress, boolean hasEntry) {
+        int habits = habitProgress <= 0 ? 0 : habitProgress < 50 ? 1 : 2;
+        return (hasEntry ? 2 : 0) + habits;
+    }
+
+    /**
+     * Fill {@code levels} (length {@link #CELLS}) for the grid ending with today's week, one
+     * month lookup per month covered. Returns the number of days in the grid with an entry.
+     */
+    public static int fill(byte[] levels, int todayEpochDay, MonthSource months) {
+        int first = firstEpochDay(todayEpochDay);
+        int todayIndex = todayEpochDay - first;
+        int entries = 0;
+
+        int i = 0;
+        while (i <= todayIndex) {
+            int packed = DateKeys.toPackedKey(first + i);
+            CalendarMonth month = months.month(packed / 10000, packed / 100 % 100 - 1);
+
+            // Walk the rest of this month, or up to today
+            int day = packed % 100;
+            int lastDay = Math.min(month.daysInMonth, day + (todayIndex - i));
+            for (; day <= lastDay; day++, i++) {
+                boolean hasEntry = month.hasEntry(day);
+                if (hasEntry) entries++;
+                levels[i] = (byte) level(month.getProgress(day), hasEntry);
+            }
+        }
+        for (; i < CELLS; i++) {
+            levels[i] = FUTURE;
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,54 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import org.junit.Test;
+
+/**
+ * Month grid layout: weeks start on Saturday.
+ */
+public class CalendarGridTest {
+
+    // Column of each DayOfWeek (MONDAY = 1 ... SUNDAY = 7) with Saturday in column 0
+    private static int column(DayOfWeek dayOfWeek) {
+        return (dayOfWeek.getValue() + 1) % 7;
+    }
+
+    @Test
+    public void startOffsetIsWeekdayOfFirstDay() {
+        for (int year = 1950; year <= 2100; year++) {
+            for (int month = 0; month < 12; month++) {
+                LocalDate first = LocalDate.of(year, month + 1, 1);
+                assertEquals(first.toString(), column(first.getDayOfWeek()), CalendarGrid.startOffset(year, month));
+            }
+        }
+    }
+
+    @Test
+    public void knownMonths() {
+        // 2026-03-01 is a Sunday, 2025-11-01 a Saturday, 2026-05-01 a Friday
+        assertEquals(1, CalendarGrid.startOffset(2026, 2));
+        assertEquals(0, CalendarGrid.startOffset(2025, 10));
+        assertEquals(6, CalendarGrid.startOffset(2026, 4));
+    }
+
+    @Test
+    public void dayAtFillsEachDayOnce() {
+        for (int offset = 0; offset < CalendarGrid.COLUMNS; offset++) {
+            for (int daysInMonth = 28; daysInMonth <= 31; daysInMonth++) {
+                int expected = 1;
+                for (int i = 0; i < CalendarGrid.CELLS; i++) {
+                    int day = CalendarGrid.dayAt(i, offset, daysInMonth);
+                    if (i < offset || expected > daysInMonth) {
+                        assertEquals(0, day);
+                    } else {
+                        assertEquals(expected++, day);
+                    }
+                }
+                assertEquals(daysInMonth + 1, expected);
+            }
+        }
+    }
+}
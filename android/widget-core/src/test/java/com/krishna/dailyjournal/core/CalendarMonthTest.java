@@ -0,0 +1,62 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * One month of day data: progress bytes, the entry mask and the content hash.
+ */
+public class CalendarMonthTest {
+
+    @Test
+    public void lengthFollowsTheCalendar() {
+        assertEquals(31, new CalendarMonth(2026, 0).daysInMonth);
+        assertEquals(28, new CalendarMonth(2026, 1).daysInMonth);
+        assertEquals(29, new CalendarMonth(2024, 1).daysInMonth);
+        assertEquals(30, new CalendarMonth(2026, 3).daysInMonth);
+    }
+
+    @Test
+    public void setClampsAndClears() {
+        CalendarMonth month = new CalendarMonth(2026, 2);
+        month.set(1, 150, true);
+        month.set(31, -5, true);
+        assertEquals(100, month.getProgress(1));
+        assertTrue(month.hasEntry(1));
+        assertEquals(0, month.getProgress(31));
+        assertTrue(month.hasEntry(31));
+
+        month.set(1, 40, false);
+        assertEquals(40, month.getProgress(1));
+        assertFalse(month.hasEntry(1));
+        assertFalse(month.hasEntry(2));
+    }
+
+    @Test
+    public void daysOutsideTheMonthAreIgnored() {
+        CalendarMonth february = new CalendarMonth(2026, 1);
+        int empty = february.contentHash();
+        february.set(0, 50, true);
+        february.set(29, 50, true);
+        february.set(31, 50, true);
+        assertEquals(empty, february.contentHash());
+    }
+
+    @Test
+    public void hashTracksContentAndMonth() {
+        CalendarMonth a = new CalendarMonth(2026, 2);
+        CalendarMonth b = new CalendarMonth(2026, 2);
+        a.set(14, 50, true);
+        b.set(14, 50, true);
+        assertEquals(a.contentHash(), b.contentHash());
+
+        b.set(14, 50, false);
+        assertNotEquals(a.contentHash(), b.contentHash());
+        b.set(14, 51, true);
+        assertNotEquals(a.contentHash(), b.contentHash());
+
+        // Same (empty) days in another month
+        assertNotEquals(new CalendarMonth(2026, 2).contentHash(), new CalendarMonth(2026, 3).contentHash());
+    }
+}
@@ -0,0 +1,71 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import org.junit.Test;
+
+/**
+ * Date key parsing and epoch-day arithmetic, checked against java.time.
+ */
+public class DateKeysTest {
+
+    @Test
+    public void epochDayMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() < 2101; date = date.plusDays(1)) {
+            int epochDay = (int) date.toEpochDay();
+            assertEquals(date.toString(), epochDay,
+                DateKeys.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.toString(),
+                DateKeys.packedKey(date.getYear(), date.getMonthValue(), date.getDayOfMonth()),
+                DateKeys.toPackedKey(epochDay));
+        }
+    }
+
+    @Test
+    public void dateKeysRoundTrip() {
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.getYear() < 2031; date = date.plusDays(1)) {
+            int epochDay = (int) date.toEpochDay();
+            assertEquals(date.toString(), DateKeys.toDateKey(epochDay));
+            assertEquals(epochDay, DateKeys.parseDateKey(date.toString()));
+        }
+    }
+
+    @Test
+    public void daysInMonthMatchesLocalDate() {
+        for (int year = 1900; year <= 2100; year++) {
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(year + "-" + month,
+                    LocalDate.of(year, month, 1).lengthOfMonth(), DateKeys.daysInMonth(year, month));
+            }
+        }
+    }
+
+    @Test
+    public void parsePackedKey() {
+        assertEquals(20260314, DateKeys.parsePackedKey("2026-03-14"));
+        assertEquals(20261231, DateKeys.parsePackedKey("2026-12-31"));
+    }
+
+    @Test
+    public void malformedKeysAreInvalid() {
+        String[] malformed = {
+            null, "", "2026-3-14", "2026-03-4", "2026/03/14", "20260314", "2026-03-14T00",
+            "2026-00-10", "2026-13-10", "2026-01-00", "2026-01-32", "2O26-01-01", "-026-01-01",
+        };
+        for (String key : malformed) {
+            assertEquals(String.valueOf(key), DateKeys.INVALID, DateKeys.parsePackedKey(key));
+            assertEquals(String.valueOf(key), DateKeys.INVALID, DateKeys.parseDateKey(key));
+        }
+    }
+
+    @Test
+    public void storedRange() {
+        assertTrue(DateKeys.inRange(DateKeys.parseDateKey("1900-01-01")));
+        assertTrue(DateKeys.inRange(DateKeys.parseDateKey("2199-12-31")));
+        assertFalse(DateKeys.inRange(DateKeys.parseDateKey("1899-12-31")));
+        assertFalse(DateKeys.inRange(DateKeys.parseDateKey("2200-01-01")));
+        assertFalse(DateKeys.inRange(DateKeys.parseDateKey("0001-01-01")));
+        assertFalse(DateKeys.inRange(DateKeys.INVALID));
+    }
+}
@@ -0,0 +1,224 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Moving kcsdiary/dd-MM-yyyy/ folders into the day log, and what happens to unreadable files.
+ */
+public class DayFolderMigrationTest {
+
+    private static final int DAY = DateKeys.parseDateKey("2026-03-14");
+    private static final int OTHER_DAY = DateKeys.parseDateKey("2026-03-15");
+
+    private File root;
+    private File diary;
+    private DayLog log;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("day-migration-test").toFile();
+        diary = new File(root, "kcsdiary");
+        log = DayLog.open(new File(root, "day-log"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        log.close();
+        DayLogTest.delete(root);
+    }
+
+    @Test
+    public void folderNames() {
+        assertEquals("14-03-2026", DayFolderMigration.folderName(DAY));
+        assertEquals(DAY, DayFolderMigration.parseFolderName("14-03-2026"));
+        assertEquals(DateKeys.INVALID, DayFolderMigration.parseFolderName("2026-03-14"));
+        assertEquals(DateKeys.INVALID, DayFolderMigration.parseFolderName("32-03-2026"));
+        assertEquals(DateKeys.INVALID, DayFolderMigration.parseFolderName("photos"));
+    }
+
+    @Test
+    public void migratesAndDeletesTextFiles() throws IOException {
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Walked to the lake\n[photo:photo_1.jpg]");
+        write(folder, "photos.json", "[{\"filename\":\"photo_1.jpg\",\"timestamp\":1}]");
+        write(folder, "meta.json", "{\"mood\":\"good\",\"tags\":[\"walk\"],\"weather\":null}");
+        write(folder, "photo_1.jpg", "jpeg");
+        File textOnly = folder(OTHER_DAY);
+        write(textOnly, "content.txt", "Rain");
+        File unrelated = new File(diary, "notes");
+        unrelated.mkdirs();
+
+        DayFolderMigration.Result result = DayFolderMigration.run(log, diary);
+        assertEquals(2, result.migrated);
+        assertTrue(result.unreadable.isEmpty());
+
+        JsonObject day = read(DAY);
+        assertEquals("Walked to the lake\n[photo:photo_1.jpg]", day.get("content").getAsString());
+        assertEquals("photo_1.jpg", day.getAsJsonArray("photos").get(0).getAsJsonObject().get("filename").getAsString());
+        assertEquals("good", day.get("mood").getAsString());
+        assertEquals("walk", day.getAsJsonArray("tags").get(0).getAsString());
+        assertFalse(day.has("weather"));
+        assertEquals("Rain", read(OTHER_DAY).get("content").getAsString());
+        assertEquals(0, read(OTHER_DAY).getAsJsonArray("photos").size());
+
+        // Text files gone, photos and non-day folders kept, empty day folders removed
+        assertFalse(new File(folder, "content.txt").exists());
+        assertFalse(new File(folder, "photos.json").exists());
+        assertFalse(new File(folder, "meta.json").exists());
+        assertTrue(new File(folder, "photo_1.jpg").exists());
+        assertFalse(textOnly.exists());
+        assertTrue(unrelated.exists());
+
+        // Nothing left to do on a second run
+        assertEquals(0, DayFolderMigration.run(log, diary).migrated);
+        assertEquals(2, log.size());
+    }
+
+    @Test
+    public void folderWinsOverExistingRecord() throws IOException {
+        // A copy left in the log by an earlier run that failed before deleting anything,
+        // after which the day was edited in its folder
+        log.write(DAY, "{\"content\":\"Older text\",\"mood\":\"bad\",\"location\":\"Home\"}"
+            .getBytes(StandardCharsets.UTF_8));
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Newer text");
+        write(folder, "photos.json", "[{\"filename\":\"photo_1.jpg\",\"timestamp\":1}]");
+        write(folder, "meta.json", "{\"mood\":\"good\",\"habits\":{\"h1\":true}}");
+
+        assertEquals(1, DayFolderMigration.run(log, diary).migrated);
+
+        JsonObject day = read(DAY);
+        assertEquals("Newer text", day.get("content").getAsString());
+        assertEquals(1, day.getAsJsonArray("photos").size());
+        assertEquals("good", day.get("mood").getAsString());
+        assertTrue(day.getAsJsonObject("habits").get("h1").getAsBoolean());
+        // Fields only the record has are kept
+        assertEquals("Home", day.get("location").getAsString());
+    }
+
+    @Test
+    public void unparseablePhotosAreSetAside() throws IOException {
+        write(folder(OTHER_DAY), "content.txt", "Fine");
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Text");
+        write(folder, "photos.json", "[{\"filename\":");
+
+        DayFolderMigration.Result result = DayFolderMigration.run(log, diary);
+        assertEquals(2, result.migrated);
+        assertEquals(Collections.singletonList("14-03-2026/photos.json"), result.unreadable);
+
+        // The rest of the day migrated; the broken file is kept under another name
+        assertEquals("Text", read(DAY).get("content").getAsString());
+        assertEquals(0, read(DAY).getAsJsonArray("photos").size());
+        assertEquals("Fine", read(OTHER_DAY).get("content").getAsString());
+        assertFalse(new File(folder, "content.txt").exists());
+        assertFalse(new File(folder, "photos.json").exists());
+        assertEquals("[{\"filename\":", text(new File(folder, "photos.json.unreadable")));
+    }
+
+    @Test
+    public void photosThatAreNotAListAreSetAside() throws IOException {
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Text");
+        write(folder, "photos.json", "{}");
+        assertEquals(Collections.singletonList("14-03-2026/photos.json"), DayFolderMigration.run(log, diary).unreadable);
+        assertEquals("Text", read(DAY).get("content").getAsString());
+    }
+
+    @Test
+    public void unparseableAndEmptyMetaAreSetAside() throws IOException {
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Text");
+        write(folder, "meta.json", "not json at all {");
+        File other = folder(OTHER_DAY);
+        write(other, "meta.json", "");
+
+        DayFolderMigration.Result result = DayFolderMigration.run(log, diary);
+        // The other day had nothing readable, so there is nothing to write for it
+        assertEquals(1, result.migrated);
+        assertEquals(2, result.unreadable.size());
+        assertEquals("Text", read(DAY).get("content").getAsString());
+        assertNull(log.read(OTHER_DAY));
+        assertTrue(new File(folder, "meta.json.unreadable").exists());
+        assertTrue(new File(other, "meta.json.unreadable").exists());
+    }
+
+    @Test
+    public void setAsideNamesDoNotCollide() throws IOException {
+        File folder = folder(DAY);
+        write(folder, "meta.json", "{");
+        write(folder, "meta.json.unreadable", "older");
+        write(folder, "content.txt", "Text");
+
+        DayFolderMigration.run(log, diary);
+        assertEquals("older", text(new File(folder, "meta.json.unreadable")));
+        assertEquals("{", text(new File(folder, "meta.json.unreadable.1")));
+    }
+
+    @Test
+    public void unreadableContentIsSetAside() throws IOException {
+        File folder = folder(DAY);
+        // A directory where the file should be cannot be read as one
+        new File(folder, "content.txt").mkdirs();
+        write(folder, "meta.json", "{\"mood\":\"good\"}");
+
+        DayFolderMigration.Result result = DayFolderMigration.run(log, diary);
+        assertEquals(Collections.singletonList("14-03-2026/content.txt"), result.unreadable);
+        assertEquals("good", read(DAY).get("mood").getAsString());
+        assertEquals("", read(DAY).get("content").getAsString());
+        assertTrue(new File(folder, "content.txt.unreadable").isDirectory());
+    }
+
+    @Test
+    public void corruptLogRecordFailsWithoutChanges() throws IOException {
+        write(folder(OTHER_DAY), "content.txt", "Fine");
+        log.write(DAY, "not json {".getBytes(StandardCharsets.UTF_8));
+        File folder = folder(DAY);
+        write(folder, "content.txt", "Text");
+        write(folder, "meta.json", "{");
+        try {
+            DayFolderMigration.run(log, diary);
+            fail("Expected the migration to fail");
+        } catch (IOException expected) {
+            // Nothing may be written, set aside or deleted
+        }
+        assertEquals(1, log.size());
+        assertTrue(new File(folder, "content.txt").exists());
+        assertTrue(new File(folder, "meta.json").exists());
+        assertTrue(new File(diary, DayFolderMigration.folderName(OTHER_DAY) + "/content.txt").exists());
+    }
+
+    private JsonObject read(int epochDay) throws IOException {
+        byte[] payload = log.read(epochDay);
+        assertNotNull(payload);
+        return JsonParser.parseString(new String(payload, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private File folder(int epochDay) {
+        File folder = new File(diary, DayFolderMigration.folderName(epochDay));
+        folder.mkdirs();
+        return folder;
+    }
+
+    private static String text(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(File folder, String name, String text) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(new File(folder, name))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Day log writes, reopening, compaction and recovery from interrupted writes.
+ */
+public class DayLogTest {
+
+    private File dir;
+    private DayLog log;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("day-log-test").toFile();
+        log = DayLog.open(dir);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        log.close();
+        delete(dir);
+    }
+
+    @Test
+    public void emptyLog() throws IOException {
+        assertEquals(0, log.size());
+        assertNull(log.read(20000));
+        assertFalse(log.contains(20000));
+        assertEquals(0, log.days().length);
+        assertFalse(log.needsCompaction());
+    }
+
+    @Test
+    public void newestWriteWins() throws IOException {
+        log.write(20000, bytes("first"));
+        log.write(20000, bytes("second"));
+        log.write(19990, bytes(""));
+        assertEquals("second", text(log.read(20000)));
+        assertEquals("", text(log.read(19990)));
+        assertEquals(2, log.size());
+        assertArrayEquals(new int[] {19990, 20000}, log.days());
+        assertEquals(12 + "first".length(), log.garbageBytes());
+    }
+
+    @Test
+    public void reopenRebuildsIndex() throws IOException {
+        Map<Integer, String> expected = writeRandom(2000);
+        log.close();
+        log = DayLog.open(dir);
+        assertContents(expected);
+    }
+
+    @Test
+    public void daysFarApart() throws IOException {
+        log.write(0, bytes("epoch"));
+        log.write(40000, bytes("later"));
+        log.write(-5, bytes("before"));
+        assertEquals("epoch", text(log.read(0)));
+        assertEquals("later", text(log.read(40000)));
+        assertEquals("before", text(log.read(-5)));
+        assertArrayEquals(new int[] {-5, 0, 40000}, log.days());
+    }
+
+    @Test
+    public void daysOutsideTheRangeAreNotIndexed() throws IOException {
+        try {
+            log.write(DateKeys.MAX_EPOCH_DAY + 1, bytes("bogus"));
+            fail("Expected the write to be refused");
+        } catch (IOException expected) {
+            // Nothing written
+        }
+        log.write(20000, bytes("kept"));
+        log.close();
+
+        // A valid record for a far-off day, as an older build could have written
+        File segment = segments()[0];
+        byte[] payload = bytes("far");
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(segment.length());
+            raf.writeInt(3_000_000);
+            raf.writeInt(payload.length);
+            raf.writeInt((int) crc.getValue());
+            raf.write(payload);
+        }
+
+        log = DayLog.open(dir);
+        assertArrayEquals(new int[] {20000}, log.days());
+        assertFalse(log.contains(3_000_000));
+        assertEquals(12 + payload.length, log.garbageBytes());
+    }
+
+    @Test
+    public void compactionKeepsLiveRecords() throws IOException {
+        Map<Integer, String> expected = writeRandom(5000);
+        assertTrue(log.needsCompaction());
+        log.compact();
+        assertEquals(0, log.garbageBytes());
+        assertFalse(log.needsCompaction());
+        assertContents(expected);
+        assertEquals(1, segments().length);
+
+        // Appends after a compaction, then a reopen
+        log.write(20001, bytes("after compaction"));
+        expected.put(20001, "after compaction");
+        log.close();
+        log = DayLog.open(dir);
+        assertContents(expected);
+    }
+
+    @Test
+    public void scanVisitsNewestRecordOnce() throws IOException {
+        Map<Integer, String> expected = writeRandom(1000);
+        Map<Integer, String> seen = new HashMap<>();
+        log.scan((epochDay, payload) -> assertNull(seen.put(epochDay, text(payload))));
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void tornTailIsCutOff() throws IOException {
+        log.write(20000, bytes("kept"));
+        log.close();
+        File segment = segments()[0];
+        long length = segment.length();
+
+        // A record header promising 50 bytes, followed by only 2 of them
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(length);
+            raf.writeInt(20001);
+            raf.writeInt(50);
+            raf.writeInt(0);
+            raf.write(new byte[] {1, 2});
+        }
+
+        log = DayLog.open(dir);
+        assertEquals(length, segment.length());
+        assertEquals("kept", text(log.read(20000)));
+        assertFalse(log.contains(20001));
+
+        // New writes land where the torn record was
+        log.write(20001, bytes("rewritten"));
+        log.close();
+        log = DayLog.open(dir);
+        assertEquals("rewritten", text(log.read(20001)));
+    }
+
+    @Test
+    public void checksumMismatchEndsTheSegment() throws IOException {
+        log.write(20000, bytes("first"));
+        log.write(20001, bytes("second"));
+        log.close();
+        File segment = segments()[0];
+
+        // Flip the last payload byte of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+
+        log = DayLog.open(dir);
+        assertEquals("first", text(log.read(20000)));
+        assertFalse(log.contains(20001));
+    }
+
+    @Test
+    public void compactedSegmentSupersedesOlderOnes() throws IOException {
+        log.write(20000, bytes("old"));
+        File[] before = segments();
+        byte[] oldSegment = Files.readAllBytes(before[0].toPath());
+        log.write(20000, bytes("new"));
+        log.compact();
+        log.close();
+
+        // As if the process died after the rename but before the old segment was deleted
+        try (FileOutputStream out = new FileOutputStream(before[0])) {
+            out.write(oldSegment);
+        }
+        log = DayLog.open(dir);
+        assertEquals("new", text(log.read(20000)));
+        assertFalse(before[0].exists());
+    }
+
+    @Test
+    public void unfinishedCompactionIsDiscarded() throws IOException {
+        log.write(20000, bytes("kept"));
+        log.close();
+        File tmp = new File(dir, "00000002.seg.tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(new byte[] {1, 2, 3});
+        }
+        log = DayLog.open(dir);
+        assertFalse(tmp.exists());
+        assertEquals("kept", text(log.read(20000)));
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownSegmentIsRejected() throws IOException {
+        log.close();
+        try (FileOutputStream out = new FileOutputStream(segments()[0])) {
+            out.write(new byte[16]);
+        }
+        log = DayLog.open(dir);
+    }
+
+    private Map<Integer, String> writeRandom(int writes) throws IOException {
+        Random random = new Random(writes);
+        Map<Integer, String> expected = new HashMap<>();
+        char[] filler = new char[400];
+        Arrays.fill(filler, 'x');
+        for (int i = 0; i < writes; i++) {
+            int day = 19000 + random.nextInt(500);
+            String value = day + ":" + i + ":" + new String(filler, 0, random.nextInt(filler.length));
+            log.write(day, bytes(value));
+            expected.put(day, value);
+        }
+        return expected;
+    }
+
+    private void assertContents(Map<Integer, String> expected) throws IOException {
+        assertEquals(expected.size(), log.size());
+        for (Map.Entry<Integer, String> e : expected.entrySet()) {
+            assertEquals(e.getValue(), text(log.read(e.getKey())));
+        }
+    }
+
+    private File[] segments() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".seg"));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,149 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.nio.IntBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Incremental stats against a brute-force recount after every change.
+ */
+public class DiaryStatsTest {
+
+    private static final int FIRST_DAY = 20000;
+    private static final int SPAN = 60;
+
+    @Test
+    public void countWordsMatchesJsSplit() {
+        assertEquals(0, DiaryStats.countWords(null));
+        assertEquals(0, DiaryStats.countWords(""));
+        assertEquals(0, DiaryStats.countWords(" \t\n "));
+        assertEquals(1, DiaryStats.countWords("word"));
+        assertEquals(3, DiaryStats.countWords("  one two\nthree  "));
+        assertEquals(2, DiaryStats.countWords("one\u00A0two"));
+        assertEquals(2, DiaryStats.countWords("one\u2028two"));
+        assertEquals(2, DiaryStats.countWords("\uFEFFone two"));
+        assertEquals(1, DiaryStats.countWords("\u2713 "));
+    }
+
+    @Test
+    public void applyDayResults() {
+        DiaryStats stats = new DiaryStats();
+        assertTrue(stats.isEmpty());
+        assertEquals(DiaryStats.RESIZED, stats.applyDay(FIRST_DAY, "hello", false));
+        assertEquals(DiaryStats.UNCHANGED, stats.applyDay(FIRST_DAY, "world", false));
+        assertEquals(DiaryStats.UPDATED, stats.applyDay(FIRST_DAY, "hello world", false));
+        assertEquals(DiaryStats.RESIZED, stats.applyDay(FIRST_DAY - 3, "", true));
+        assertEquals(FIRST_DAY - 3, stats.getFirstEpochDay());
+        assertEquals(4, stats.getDayCount());
+        assertEquals(2, stats.getTotalEntries());
+        assertEquals(2, stats.getTotalWords());
+    }
+
+    @Test
+    public void photosAloneMakeAnEntry() {
+        DiaryStats stats = new DiaryStats();
+        stats.applyDay(FIRST_DAY, "", true);
+        assertEquals(1, stats.getTotalEntries());
+        assertEquals(0, stats.getTotalWords());
+        assertEquals(1, stats.getStreak(FIRST_DAY));
+    }
+
+    @Test
+    public void streakEndsTodayOrYesterday() {
+        DiaryStats stats = new DiaryStats();
+        for (int day = FIRST_DAY; day < FIRST_DAY + 5; day++) {
+            stats.applyDay(day, "entry", false);
+        }
+        int last = FIRST_DAY + 4;
+        assertEquals(5, stats.getStreak(last));
+        assertEquals(5, stats.getStreak(last + 1));
+        assertEquals(0, stats.getStreak(last + 2));
+
+        // A gap in the middle breaks the run
+        stats.applyDay(FIRST_DAY + 2, "", false);
+        assertEquals(2, stats.getStreak(last));
+        stats.applyDay(FIRST_DAY + 2, "back", false);
+        assertEquals(5, stats.getStreak(last));
+    }
+
+    @Test
+    public void randomEditsMatchRecount() {
+        Random random = new Random(42);
+        DiaryStats stats = new DiaryStats();
+        int[] words = new int[SPAN];
+        boolean[] photos = new boolean[SPAN];
+
+        for (int step = 0; step < 20000; step++) {
+            int i = random.nextInt(SPAN);
+            int count = random.nextInt(3) == 0 ? 0 : random.nextInt(4);
+            words[i] = count;
+            photos[i] = random.nextInt(8) == 0;
+            stats.applyDay(FIRST_DAY + i, text(count), photos[i]);
+
+            int today = FIRST_DAY + random.nextInt(SPAN + 2);
+            assertRecount(stats, words, photos, today);
+        }
+    }
+
+    @Test
+    public void rebuildAndLoadMatchIncremental() {
+        Random random = new Random(7);
+        int[] epochDays = new int[SPAN];
+        CharSequence[] contents = new CharSequence[SPAN];
+        boolean[] hasPhotos = new boolean[SPAN];
+        DiaryStats incremental = new DiaryStats();
+        for (int i = 0; i < SPAN; i++) {
+            epochDays[i] = FIRST_DAY + SPAN - 1 - i; // newest first
+            contents[i] = text(random.nextInt(3));
+            hasPhotos[i] = random.nextInt(10) == 0;
+            incremental.applyDay(epochDays[i], contents[i], hasPhotos[i]);
+        }
+
+        DiaryStats rebuilt = new DiaryStats();
+        rebuilt.rebuild(epochDays, contents, hasPhotos);
+        assertSameStats(incremental, rebuilt);
+
+        IntBuffer records = IntBuffer.allocate(rebuilt.getDayCount());
+        rebuilt.writeRecords(records);
+        DiaryStats loaded = new DiaryStats();
+        loaded.load(rebuilt.getFirstEpochDay(), records.array());
+        assertSameStats(rebuilt, loaded);
+    }
+
+    private static void assertSameStats(DiaryStats expected, DiaryStats actual) {
+        assertEquals(expected.getTotalEntries(), actual.getTotalEntries());
+        assertEquals(expected.getTotalWords(), actual.getTotalWords());
+        for (int day = FIRST_DAY - 1; day <= FIRST_DAY + SPAN + 1; day++) {
+            assertEquals(expected.recordAt(day), actual.recordAt(day));
+            assertEquals(expected.getStreak(day), actual.getStreak(day));
+        }
+    }
+
+    private static void assertRecount(DiaryStats stats, int[] words, boolean[] photos, int today) {
+        int entries = 0;
+        long totalWords = 0;
+        for (int i = 0; i < SPAN; i++) {
+            if (words[i] > 0 || photos[i]) entries++;
+            totalWords += words[i];
+        }
+        assertEquals(entries, stats.getTotalEntries());
+        assertEquals(totalWords, stats.getTotalWords());
+
+        int end = isEntry(words, photos, today - FIRST_DAY) ? today : today - 1;
+        int streak = 0;
+        while (isEntry(words, photos, end - streak - FIRST_DAY)) streak++;
+        assertEquals("streak on " + today, streak, stats.getStreak(today));
+    }
+
+    private static boolean isEntry(int[] words, boolean[] photos, int i) {
+        return i >= 0 && i < SPAN && (words[i] > 0 || photos[i]);
+    }
+
+    private static String text(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) text.append(i == 0 ? "" : " ").append("word");
+        return text.toString();
+    }
+}
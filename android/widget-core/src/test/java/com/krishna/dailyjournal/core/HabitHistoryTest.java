@@ -0,0 +1,236 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Habit streaks, rates and day fractions against a brute-force recount, and reading back
+ * serialized histories.
+ */
+public class HabitHistoryTest {
+
+    private static final int FIRST_DAY = 20000;
+    private static final int SPAN = 90;
+    private static final String[] IDS = {"read", "walk", "water"};
+
+    @Test
+    public void streakEndsTodayOrYesterday() {
+        HabitHistory history = new HabitHistory();
+        for (int day = FIRST_DAY; day < FIRST_DAY + 5; day++) {
+            history.setDay(day, Collections.singletonList("read"));
+        }
+        int last = FIRST_DAY + 4;
+        assertEquals(5, history.getCurrentStreak("read", last));
+        assertEquals(5, history.getCurrentStreak("read", last + 1));
+        assertEquals(0, history.getCurrentStreak("read", last + 2));
+        assertEquals(0, history.getCurrentStreak("unknown", last));
+
+        // A gap in the middle breaks the run
+        history.setDay(FIRST_DAY + 2, Collections.<String>emptyList());
+        assertEquals(2, history.getCurrentStreak("read", last));
+        assertEquals(2, history.getLongestStreak("read"));
+        history.setDay(FIRST_DAY + 2, Collections.singletonList("read"));
+        assertEquals(5, history.getLongestStreak("read"));
+    }
+
+    @Test
+    public void daysOutsideTheTrackedRangeAreIgnored() {
+        HabitHistory history = new HabitHistory();
+        assertFalse(history.setDay(HabitHistory.BASE_EPOCH_DAY - 1, Collections.singletonList("read")));
+        assertFalse(history.setDay(HabitHistory.BASE_EPOCH_DAY + HabitHistory.MAX_DAYS, Collections.singletonList("read")));
+        assertTrue(history.setDay(HabitHistory.BASE_EPOCH_DAY, Collections.singletonList("read")));
+        assertEquals(1, history.getCurrentStreak("read", HabitHistory.BASE_EPOCH_DAY));
+        assertEquals(0f, history.getRate("read", HabitHistory.BASE_EPOCH_DAY - 1, 7), 0f);
+    }
+
+    @Test
+    public void activeHabitsAndDayFraction() {
+        HabitHistory history = new HabitHistory();
+        assertEquals(0f, history.getDayFraction(FIRST_DAY), 0f);
+        assertTrue(history.setActiveHabits(Arrays.asList("read", "walk")));
+        assertFalse(history.setActiveHabits(Arrays.asList("read", "walk")));
+        history.setDay(FIRST_DAY, Arrays.asList("read", "water"));
+
+        // "water" has history but is not one of the app's habits
+        assertArrayEquals(new String[] {"read", "walk"}, history.getActiveHabitIds());
+        assertEquals(0.5f, history.getDayFraction(FIRST_DAY), 0f);
+
+        assertTrue(history.setActiveHabits(Collections.singletonList("water")));
+        assertArrayEquals(new String[] {"water"}, history.getActiveHabitIds());
+        assertEquals(1f, history.getDayFraction(FIRST_DAY), 0f);
+        assertEquals(1, history.getCurrentStreak("read", FIRST_DAY));
+    }
+
+    @Test
+    public void randomEditsMatchRecount() {
+        Random random = new Random(42);
+        HabitHistory history = new HabitHistory();
+        history.setActiveHabits(Arrays.asList(IDS));
+        boolean[][] done = new boolean[IDS.length][SPAN];
+
+        for (int step = 0; step < 5000; step++) {
+            int day = random.nextInt(SPAN);
+            List<String> completed = new ArrayList<>();
+            for (int h = 0; h < IDS.length; h++) {
+                done[h][day] = random.nextInt(3) != 0;
+                if (done[h][day]) completed.add(IDS[h]);
+            }
+            history.setDay(FIRST_DAY + day, completed);
+
+            int today = random.nextInt(SPAN + 2);
+            assertRecount(history, done, today);
+        }
+    }
+
+    @Test
+    public void writeAndReadMatch() throws IOException {
+        Random random = new Random(7);
+        HabitHistory history = new HabitHistory();
+        history.setActiveHabits(Arrays.asList("read", "walk"));
+        boolean[][] done = new boolean[IDS.length][SPAN];
+        for (int day = 0; day < SPAN; day++) {
+            List<String> completed = new ArrayList<>();
+            for (int h = 0; h < IDS.length; h++) {
+                done[h][day] = random.nextBoolean();
+                if (done[h][day]) completed.add(IDS[h]);
+            }
+            history.setDay(FIRST_DAY + day, completed);
+        }
+
+        HabitHistory loaded = new HabitHistory();
+        loaded.read(input(bytes(history)));
+        assertArrayEquals(history.getActiveHabitIds(), loaded.getActiveHabitIds());
+        for (int today = 0; today < SPAN + 2; today++) {
+            assertRecount(loaded, done, today);
+        }
+    }
+
+    @Test
+    public void badWordRangesAreRejected() throws IOException {
+        long[][] ranges = {
+            {-1, 1},
+            {0, -1},
+            {0, (HabitHistory.MAX_DAYS + 63) / 64 + 1},
+            {(HabitHistory.MAX_DAYS + 63) / 64, 1},
+            {Integer.MAX_VALUE, Integer.MAX_VALUE},
+        };
+        for (long[] range : ranges) {
+            HabitHistory history = historyWith("read");
+            try {
+                history.read(input(file((int) range[0], (int) range[1])));
+                fail("Expected " + range[0] + "+" + range[1] + " to be rejected");
+            } catch (IOException expected) {
+                // The earlier history is kept
+            }
+            assertArrayEquals(new String[] {"read"}, history.getActiveHabitIds());
+            assertEquals(1, history.getCurrentStreak("read", FIRST_DAY));
+        }
+    }
+
+    @Test
+    public void unrecognisedOrTruncatedDataIsRejected() throws IOException {
+        byte[] valid = bytes(historyWith("read"));
+        byte[] badMagic = valid.clone();
+        badMagic[0] ^= 1;
+        byte[][] inputs = {badMagic, Arrays.copyOf(valid, valid.length - 1), new byte[0]};
+        for (byte[] input : inputs) {
+            HabitHistory history = historyWith("walk");
+            try {
+                history.read(input(input));
+                fail("Expected the data to be rejected");
+            } catch (IOException expected) {
+                // The earlier history is kept
+            }
+            assertArrayEquals(new String[] {"walk"}, history.getActiveHabitIds());
+        }
+
+        // The largest range that still fits is accepted
+        HabitHistory history = new HabitHistory();
+        int lastWord = (HabitHistory.MAX_DAYS + 63) / 64 - 1;
+        history.read(input(file(lastWord, 1)));
+        assertEquals(1, history.getLongestStreak("read"));
+    }
+
+    private static void assertRecount(HabitHistory history, boolean[][] done, int today) {
+        int activeCount = 0;
+        int doneToday = 0;
+        for (int h = 0; h < IDS.length; h++) {
+            boolean[] days = done[h];
+            String id = IDS[h];
+            String message = id + " on day " + today;
+
+            int end = today < SPAN && days[today] ? today : today - 1;
+            int current = 0;
+            for (int d = end; d >= 0 && d < SPAN && days[d]; d--) current++;
+            assertEquals(message, current, history.getCurrentStreak(id, FIRST_DAY + today));
+
+            int longest = 0;
+            int run = 0;
+            for (boolean d : days) {
+                run = d ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            assertEquals(message, longest, history.getLongestStreak(id));
+
+            for (int window : new int[] {1, 7, 30}) {
+                int count = 0;
+                for (int d = today - window + 1; d <= today; d++) {
+                    if (d >= 0 && d < SPAN && days[d]) count++;
+                }
+                assertEquals(message, count / (float) window, history.getRate(id, FIRST_DAY + today, window), 0f);
+            }
+
+            if (Arrays.asList(history.getActiveHabitIds()).contains(id)) {
+                activeCount++;
+                if (today < SPAN && days[today]) doneToday++;
+            }
+        }
+        float fraction = activeCount == 0 ? 0f : doneToday / (float) activeCount;
+        assertEquals(fraction, history.getDayFraction(FIRST_DAY + today), 0f);
+    }
+
+    private static HabitHistory historyWith(String id) {
+        HabitHistory history = new HabitHistory();
+        history.setActiveHabits(Collections.singletonList(id));
+        history.setDay(FIRST_DAY, Collections.singletonList(id));
+        return history;
+    }
+
+    // One active "read" habit with the given word range; only the first day it covers is set
+    private static byte[] file(int firstWord, int wordCount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x4B434849);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeBoolean(true);
+        out.writeUTF("read");
+        out.writeInt(firstWord);
+        out.writeInt(wordCount);
+        for (int w = 0; w < Math.min(wordCount, 2); w++) {
+            out.writeLong(w == 0 ? 1L : 0L);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] bytes(HabitHistory history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
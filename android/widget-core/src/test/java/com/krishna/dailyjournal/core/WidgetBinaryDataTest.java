@@ -0,0 +1,104 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * widget-data.bin on disk: writing, mapping it back and rejecting what is not a whole file.
+ */
+public class WidgetBinaryDataTest {
+
+    private static final int FIRST = DateKeys.parseDateKey("2026-02-27");
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("widget-binary-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        DayLogTest.delete(dir);
+    }
+
+    @Test
+    public void writtenFileMapsBack() throws IOException {
+        File file = new File(dir, WidgetBinaryData.FILE_NAME);
+        encode(5L).writeTo(file);
+
+        WidgetBinaryData binary = WidgetBinaryData.open(file);
+        assertNotNull(binary);
+        assertEquals(5L, binary.sequence);
+        assertEquals(FIRST, binary.firstEpochDay);
+        assertEquals(5, binary.dayCount);
+        assertEquals(3, binary.getHabitsCompleted());
+        assertFalse(binary.hasThemeColor());
+        assertEquals("", binary.getHabitsDate());
+    }
+
+    @Test
+    public void monthsOutsideTheRangeReadEmpty() {
+        WidgetBinaryData binary = encode(1L);
+        byte[] records = new byte[31];
+
+        // 2026-03-01 .. 03-03 are stored, the rest of March is not
+        assertEquals(31, binary.readMonth(2026, 2, records));
+        assertTrue(WidgetBinaryData.hasEntry(records[0]));
+        assertEquals(60, WidgetBinaryData.progress(records[2]));
+        for (int i = 3; i < 31; i++) assertEquals(0, records[i]);
+
+        assertEquals(30, binary.readMonth(2026, 3, records));
+        for (int i = 0; i < 30; i++) assertEquals(0, records[i]);
+
+        CalendarMonth february = WidgetDataParser.readCalendarMonth(binary, 2026, 1);
+        assertEquals(100, february.getProgress(27));
+        assertFalse(february.hasEntry(27));
+        assertTrue(february.hasEntry(28));
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException {
+        File file = new File(dir, WidgetBinaryData.FILE_NAME);
+        encode(1L).writeTo(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 1);
+        }
+        assertNull(WidgetBinaryData.open(file));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(20);
+        }
+        assertNull(WidgetBinaryData.open(file));
+        assertNull(WidgetBinaryData.open(new File(dir, "missing.bin")));
+    }
+
+    @Test
+    public void onlyTheMatchingSequenceIsCurrent() {
+        WidgetBinaryData binary = encode(7L);
+        assertTrue(WidgetData.isCurrent(binary, 7L));
+        assertFalse(WidgetData.isCurrent(binary, 8L));
+        assertFalse(WidgetData.isCurrent(binary, -1L));
+        assertFalse(WidgetData.isCurrent(null, 7L));
+    }
+
+    private static WidgetBinaryData encode(long sequence) {
+        byte[] days = {
+            WidgetBinaryData.record(100, false),
+            WidgetBinaryData.record(0, true),
+            WidgetBinaryData.record(20, true),
+            0,
+            WidgetBinaryData.record(60, false),
+        };
+        ByteBuffer encoded = WidgetBinaryData.encode(sequence, 3, 4, -1, 0, 0, 0, false, 0, FIRST, days);
+        return WidgetBinaryData.wrap(encoded);
+    }
+}
@@ -0,0 +1,169 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+/**
+ * widget-data.json streaming and the widget-data.bin layout it is paired with.
+ */
+public class WidgetDataParserTest {
+
+    private static final String JSON = "{"
+        + "\"sequence\":7,\"habitsCompleted\":2,\"habitsTotal\":\"5\",\"habitsDate\":\"2026-03-14\","
+        + "\"todaySnippet\":\"Walked to the lake\",\"todayDate\":\"2026-03-14\","
+        + "\"statsEntries\":12.0,\"statsStreak\":3,\"statsWords\":\"oops\",\"themeColor\":\"#7C3AED\","
+        + "\"extra\":{\"nested\":[1,2,3]},"
+        + "\"calendarDays\":{"
+        + "\"2026-02-28\":{\"habitProgress\":100,\"hasEntry\":true},"
+        + "\"2026-03-01\":{\"habitProgress\":50,\"hasEntry\":true},"
+        + "\"2026-03-14\":{\"hasEntry\":false,\"habitProgress\":140,\"note\":\"x\"},"
+        + "\"2026-03-31\":{\"habitProgress\":25,\"hasEntry\":\"yes\"},"
+        + "\"bad-key\":{\"habitProgress\":10,\"hasEntry\":true},"
+        + "\"2026-03-20\":true,"
+        + "\"2026-04-01\":{\"habitProgress\":75,\"hasEntry\":true}"
+        + "}}";
+
+    @Test
+    public void parsesFieldsAndOneMonth() throws IOException {
+        WidgetData data = WidgetDataParser.parse(new StringReader(JSON), null, 2026, 2);
+
+        assertEquals(7L, data.sequence);
+        assertEquals(2, data.habitsCompleted);
+        assertEquals(5, data.habitsTotal);
+        assertEquals("2026-03-14", data.habitsDate);
+        assertEquals("Walked to the lake", data.todaySnippet);
+        assertEquals("2026-03-14", data.todayDate);
+        assertEquals(12, data.statsEntries);
+        assertEquals(3, data.statsStreak);
+        assertEquals(0, data.statsWords);
+        assertEquals("#7C3AED", data.themeColor);
+
+        CalendarMonth march = data.calendarMonth;
+        assertNotNull(march);
+        assertEquals(31, march.daysInMonth);
+        assertEquals(50, march.getProgress(1));
+        assertTrue(march.hasEntry(1));
+        assertEquals(100, march.getProgress(14));
+        assertFalse(march.hasEntry(14));
+        assertEquals(25, march.getProgress(31));
+        assertFalse(march.hasEntry(31));
+        assertEquals(0, march.getProgress(20));
+        for (int day = 2; day <= 13; day++) {
+            assertEquals(0, march.getProgress(day));
+            assertFalse(march.hasEntry(day));
+        }
+    }
+
+    @Test
+    public void missingFieldsFallBack() throws IOException {
+        WidgetData data = WidgetDataParser.parse(new StringReader("{}"), null, 2026, 0);
+        assertEquals(-1L, data.sequence);
+        assertEquals("", data.todaySnippet);
+        assertEquals("", data.todayDate);
+        assertNull(data.themeColor);
+        assertNotNull(data.calendarMonth);
+        assertFalse(data.calendarMonth.hasEntry(1));
+    }
+
+    @Test
+    public void matchingBinaryLeavesCalendarToIt() throws IOException {
+        WidgetBinaryData binary = binary(7L);
+        WidgetData data = WidgetDataParser.parse(new StringReader(JSON), binary, 2026, 2);
+        assertTrue(data.isBackedBy(binary));
+        assertNull(data.calendarMonth);
+        assertEquals("Walked to the lake", data.todaySnippet);
+
+        WidgetData stale = WidgetDataParser.parse(new StringReader(JSON), binary(6L), 2026, 2);
+        assertFalse(stale.isBackedBy(binary(6L)));
+        assertNotNull(stale.calendarMonth);
+    }
+
+    @Test
+    public void binaryMonthMatchesJsonMonth() throws IOException {
+        WidgetBinaryData binary = binary(7L);
+        for (int month = 1; month <= 3; month++) {
+            CalendarMonth fromJson = WidgetDataParser.readCalendarMonth(new StringReader(JSON), 2026, month);
+            CalendarMonth fromBinary = WidgetDataParser.readCalendarMonth(binary, 2026, month);
+            assertEquals(fromJson.daysInMonth, fromBinary.daysInMonth);
+            for (int day = 1; day <= fromJson.daysInMonth; day++) {
+                assertEquals(month + "/" + day, fromJson.getProgress(day), fromBinary.getProgress(day));
+                assertEquals(month + "/" + day, fromJson.hasEntry(day), fromBinary.hasEntry(day));
+            }
+            assertEquals(fromJson.contentHash(), fromBinary.contentHash());
+        }
+    }
+
+    @Test
+    public void daySpanMatchesPerMonthReads() throws IOException {
+        // Starts mid-February, so 2026-02-28 is inside and everything before it outside
+        int first = DateKeys.parseDateKey("2026-02-20");
+        byte[] records = new byte[DateKeys.parseDateKey("2026-04-30") - first + 1];
+        WidgetDataParser.readCalendarDays(new StringReader(JSON), first, records);
+
+        for (int month = 1; month <= 3; month++) {
+            CalendarMonth streamed = WidgetDataParser.readCalendarMonth(new StringReader(JSON), 2026, month);
+            assertEquals(streamed.contentHash(), WidgetDataParser.calendarMonth(records, first, 2026, month).contentHash());
+        }
+        // Days before the span are left out rather than misplaced
+        byte[] late = new byte[20];
+        WidgetDataParser.readCalendarDays(new StringReader(JSON), DateKeys.parseDateKey("2026-03-02"), late);
+        CalendarMonth march = WidgetDataParser.calendarMonth(late, DateKeys.parseDateKey("2026-03-02"), 2026, 2);
+        assertFalse(march.hasEntry(1));
+        assertEquals(0, march.getProgress(1));
+        assertEquals(100, march.getProgress(14));
+    }
+
+    @Test
+    public void binaryRoundTrip() {
+        ByteBuffer encoded = WidgetBinaryData.encode(9L, 1, 4, 20526, 10, 2, 300, true, 0xFF112233,
+            20000, new byte[] {WidgetBinaryData.record(150, true), 0, WidgetBinaryData.record(40, false)});
+        WidgetBinaryData binary = WidgetBinaryData.wrap(encoded);
+        assertNotNull(binary);
+        assertEquals(9L, binary.sequence);
+        assertEquals(1, binary.getHabitsCompleted());
+        assertEquals(4, binary.getHabitsTotal());
+        assertEquals(DateKeys.toDateKey(20526), binary.getHabitsDate());
+        assertEquals(10, binary.getStatsEntries());
+        assertEquals(2, binary.getStatsStreak());
+        assertEquals(300, binary.getStatsWords());
+        assertTrue(binary.hasThemeColor());
+        assertEquals(0xFF112233, binary.getThemeColor());
+        assertEquals(20000, binary.firstEpochDay);
+        assertEquals(3, binary.dayCount);
+
+        byte record = WidgetBinaryData.record(150, true);
+        assertEquals(100, WidgetBinaryData.progress(record));
+        assertTrue(WidgetBinaryData.hasEntry(record));
+    }
+
+    @Test
+    public void malformedBinaryIsRejected() {
+        ByteBuffer encoded = WidgetBinaryData.encode(1L, 0, 0, -1, 0, 0, 0, false, 0, 20000, new byte[10]);
+        ByteBuffer truncated = ByteBuffer.allocate(encoded.capacity() - 1);
+        encoded.clear();
+        encoded.limit(truncated.capacity());
+        truncated.put(encoded);
+        assertNull(WidgetBinaryData.wrap(truncated));
+
+        ByteBuffer badMagic = WidgetBinaryData.encode(1L, 0, 0, -1, 0, 0, 0, false, 0, 0, new byte[0]);
+        badMagic.putInt(0, 0);
+        assertNull(WidgetBinaryData.wrap(badMagic));
+        assertNull(WidgetBinaryData.wrap(ByteBuffer.allocate(8)));
+    }
+
+    // The calendar days of JSON, encoded the way widgetsBridge.ts does
+    private static WidgetBinaryData binary(long sequence) {
+        int first = DateKeys.parseDateKey("2026-02-28");
+        byte[] days = new byte[DateKeys.parseDateKey("2026-04-01") - first + 1];
+        days[0] = WidgetBinaryData.record(100, true);
+        days[DateKeys.parseDateKey("2026-03-01") - first] = WidgetBinaryData.record(50, true);
+        days[DateKeys.parseDateKey("2026-03-14") - first] = WidgetBinaryData.record(140, false);
+        days[DateKeys.parseDateKey("2026-03-31") - first] = WidgetBinaryData.record(25, false);
+        days[days.length - 1] = WidgetBinaryData.record(75, true);
+        return WidgetBinaryData.wrap(WidgetBinaryData.encode(sequence, 2, 5, -1, 12, 3, 0, true, 0xFF7C3AED, first, days));
+    }
+}
@@ -0,0 +1,80 @@
+package com.krishna.dailyjournal.core;
+
+import static org.junit.Assert.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Year heatmap layout and fill, checked day by day against java.time.
+ */
+public class YearHeatmapTest {
+
+    @Test
+    public void gridStartsOnSaturdayAndEndsWithTodaysWeek() {
+        for (LocalDate today = LocalDate.of(2024, 1, 1); today.getYear() < 2027; today = today.plusDays(1)) {
+            int todayEpochDay = (int) today.toEpochDay();
+            int first = YearHeatmap.firstEpochDay(todayEpochDay);
+            assertEquals(DayOfWeek.SATURDAY, LocalDate.ofEpochDay(first).getDayOfWeek());
+            int todayIndex = todayEpochDay - first;
+            assertEquals(today.toString(), YearHeatmap.WEEKS - 1, todayIndex / YearHeatmap.ROWS);
+        }
+    }
+
+    @Test
+    public void levels() {
+        assertEquals(0, YearHeatmap.level(0, false));
+        assertEquals(1, YearHeatmap.level(10, false));
+        assertEquals(2, YearHeatmap.level(50, false));
+        assertEquals(2, YearHeatmap.level(0, true));
+        assertEquals(3, YearHeatmap.level(49, true));
+        assertEquals(YearHeatmap.MAX_LEVEL, YearHeatmap.level(100, true));
+    }
+
+    @Test
+    public void fillMatchesDayByDay() {
+        Random random = new Random(3);
+        // Random data per epoch day, served through months like a snapshot would
+        int base = (int) LocalDate.of(2022, 1, 1).toEpochDay();
+        int[] progress = new int[5 * 366];
+        boolean[] entries = new boolean[progress.length];
+        for (int i = 0; i < progress.length; i++) {
+            progress[i] = random.nextInt(3) * 50;
+            entries[i] = random.nextBoolean();
+        }
+
+        byte[] levels = new byte[YearHeatmap.CELLS];
+        for (LocalDate today = LocalDate.of(2023, 1, 1); today.getYear() < 2027; today = today.plusDays(3)) {
+            int todayEpochDay = (int) today.toEpochDay();
+            Set<Integer> requested = new HashSet<>();
+            int count = YearHeatmap.fill(levels, todayEpochDay, (year, month) -> {
+                assertTrue("month requested twice", requested.add(year * 12 + month));
+                CalendarMonth result = new CalendarMonth(year, month);
+                for (int day = 1; day <= result.daysInMonth; day++) {
+                    int i = DateKeys.epochDay(year, month + 1, day) - base;
+                    result.set(day, progress[i], entries[i]);
+                }
+                return result;
+            });
+
+            int first = YearHeatmap.firstEpochDay(todayEpochDay);
+            int expectedCount = 0;
+            for (int cell = 0; cell < YearHeatmap.CELLS; cell++) {
+                int epochDay = first + cell;
+                if (epochDay > todayEpochDay) {
+                    assertEquals(YearHeatmap.FUTURE, levels[cell]);
+                    continue;
+                }
+                int i = epochDay - base;
+                if (entries[i]) expectedCount++;
+                assertEquals(LocalDate.ofEpochDay(epochDay).toString(),
+                    YearHeatmap.level(progress[i], entries[i]), levels[cell]);
+            }
+            assertEquals(expectedCount, count);
+        }
+    }
+}
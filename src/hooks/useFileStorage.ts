@@ -2,6 +2,8 @@ import { useState, useCallback, useEffect } from 'react';
 import { Filesystem, Directory, Encoding } from '@capacitor/filesystem';
 import { Capacitor } from '@capacitor/core';
 import { syncAllWidgetData } from '@/lib/syncAllWidgetData';
+import { dayStorage } from '@/lib/dayStorage';
+import { toast } from '@/hooks/use-toast';
 
 export interface PhotoData {
   filename: string;
@@ -58,6 +60,12 @@ const isNativePlatform = (): boolean => {
   return Capacitor.isNativePlatform();
 };
 
+// Days live in the native day log (see dayStorage.ts) when the plugin is present,
+// otherwise in the per-day folders
+const hasDayLog = (): boolean => {
+  return isNativePlatform() && dayStorage.isAvailable();
+};
+
 // Migration function to move data from Documents to Data (private)
 const migrateToPrivateStorage = async () => {
   if (!isNativePlatform()) return;
@@ -138,9 +146,6 @@ const migrateToPrivateStorage = async () => {
   }
 };
 
-// Run migration on load
-migrateToPrivateStorage();
-
 // Fallback to localStorage for web
 const STORAGE_KEY = 'diary-app-data';
 
@@ -198,6 +203,61 @@ const saveToLocalStorage = (data: Record<string, DayFileData>) => {
   window.dispatchEvent(new CustomEvent(STORAGE_UPDATE_EVENT));
 };
 
+// Documents -> Data runs once on load; the day log migration starts after it
+const privateStorageReady = migrateToPrivateStorage();
+
+// Move the per-day folders into the day log, once. Until it has succeeded native days keep
+// being saved to and loaded from the folders; a failure is shown, and retried next start.
+let dayLogMigration: Promise<boolean> | null = null;
+
+const dayLogActive = (): Promise<boolean> => {
+  if (!hasDayLog()) return Promise.resolve(false);
+  if (!dayLogMigration) {
+    dayLogMigration = privateStorageReady.then(async () => {
+      try {
+        const { migrated, unreadable } = await dayStorage.migrate();
+        if (migrated > 0) console.log(`Migrated ${migrated} days to the day log`);
+        if (unreadable.length > 0) {
+          console.warn('Set aside unreadable diary files:', unreadable);
+          toast({
+            title: 'Some diary files could not be read',
+            description: `${unreadable.length} file(s) were kept aside as *.unreadable in the diary folder.`,
+            variant: 'destructive',
+          });
+        }
+        return true;
+      } catch (e) {
+        console.error('Failed to move days to the day log:', e);
+        toast({
+          title: 'Could not upgrade diary storage',
+          description: 'Entries are still saved the old way; it will be retried next time.',
+          variant: 'destructive',
+        });
+        return false;
+      }
+    });
+  }
+  return dayLogMigration;
+};
+
+// Fill in days that localStorage is missing (e.g. after the WebView's storage was cleared)
+// from the day log, in one call
+const restoreFromDayLog = async () => {
+  const days = await dayStorage.readAll();
+  const local = loadFromLocalStorage();
+  let restored = 0;
+  for (const [key, day] of Object.entries(days)) {
+    if (local[key]) continue;
+    local[key] = { ...day, content: day.content ?? '', photos: day.photos ?? [] };
+    restored++;
+  }
+  if (restored > 0) saveToLocalStorage(local);
+};
+
+dayLogActive()
+  .then(ready => (ready ? restoreFromDayLog() : undefined))
+  .catch(e => console.error('Failed to restore from the day log:', e));
+
 // Export for use in other hooks
 export const getAllDiaryData = (): Record<string, DayFileData> => {
   return loadFromLocalStorage();
@@ -317,9 +377,15 @@ export const useFileStorage = (selectedDate: Date) => {
         });
 
         // Sync all widget data atomically
-        syncAllWidgetData();
+        syncAllWidgetData(dateKey);
 
-        if (isNativePlatform()) {
+        if (await dayLogActive()) {
+          try {
+            await dayStorage.writeDay(dateKey, { content: newContent });
+          } catch (e) {
+            console.error('Failed to save content:', e);
+          }
+        } else if (isNativePlatform()) {
           await ensureFolder();
           try {
             await Filesystem.writeFile({
@@ -362,20 +428,26 @@ export const useFileStorage = (selectedDate: Date) => {
       });
 
       // Sync widgets after meta changes (habits, mood, etc.)
-      syncAllWidgetData();
+      syncAllWidgetData(dateKey);
+
+      const metaOnly = {
+        tags: meta.tags,
+        mood: meta.mood,
+        location: meta.location,
+        weather: meta.weather,
+        habits: meta.habits,
+      };
 
-      // Native: persist meta.json
-      if (isNativePlatform()) {
+      // Native: persist to the day log, or meta.json without it
+      if (await dayLogActive()) {
+        try {
+          await dayStorage.writeDay(dateKey, metaOnly);
+        } catch (e) {
+          console.error('Failed to save meta:', e);
+        }
+      } else if (isNativePlatform()) {
         await ensureFolder();
 
-        const metaOnly = {
-          tags: meta.tags,
-          mood: meta.mood,
-          location: meta.location,
-          weather: meta.weather,
-          habits: meta.habits,
-        };
-
         try {
           await Filesystem.writeFile({
             path: `${APP_FOLDER}/${dateFolder}/meta.json`,
@@ -436,7 +508,7 @@ export const useFileStorage = (selectedDate: Date) => {
       });
 
       // Sync widgets after photo add (changes entry count)
-      syncAllWidgetData();
+      syncAllWidgetData(dateKey);
       if (isNativePlatform()) {
         try {
           await ensureFolder();
@@ -447,6 +519,11 @@ export const useFileStorage = (selectedDate: Date) => {
             directory: STORAGE_DIRECTORY,
           });
 
+          if (await dayLogActive()) {
+            await dayStorage.writeDay(dateKey, { content: updatedContent, photos: updatedPhotos });
+            return photo;
+          }
+
           await Filesystem.writeFile({
             path: `${APP_FOLDER}/${dateFolder}/content.txt`,
             data: updatedContent,
@@ -571,7 +648,7 @@ export const useFileStorage = (selectedDate: Date) => {
       });
 
       // Sync widgets after photo delete
-      syncAllWidgetData();
+      syncAllWidgetData(dateKey);
 
       if (isNativePlatform()) {
         try {
@@ -580,6 +657,17 @@ export const useFileStorage = (selectedDate: Date) => {
             directory: STORAGE_DIRECTORY,
           });
 
+          if (await dayLogActive()) {
+            await dayStorage.writeDay(dateKey, {
+              content: dayData.content
+                .split('\n')
+                .filter(line => line !== `[photo:${filename}]`)
+                .join('\n'),
+              photos: dayData.photos.filter(p => p.filename !== filename),
+            });
+            return;
+          }
+
           await Filesystem.writeFile({
             path: `${APP_FOLDER}/${dateFolder}/content.txt`,
             data: dayData.content
@@ -612,6 +700,33 @@ export const useFileStorage = (selectedDate: Date) => {
       if (!isNativePlatform()) return;
 
       setIsLoading(true);
+      // Until the migration succeeds, days are saved to and read from the folders
+      if (await dayLogActive()) {
+        // The whole day, photos included, in one call
+        try {
+          const day = await dayStorage.readDay(dateKey, true);
+          if (day) {
+            setAllData(prev => {
+              const current = prev[dateKey] || { content: '', photos: [] };
+
+              return {
+                ...prev,
+                [dateKey]: {
+                  ...current,
+                  ...day,
+                  content: day.content ?? '',
+                  photos: day.photos ?? [],
+                },
+              };
+            });
+          }
+        } catch (e) {
+          console.error('Failed to load day:', e);
+        }
+        setIsLoading(false);
+        return;
+      }
+
       try {
         // Load content
         const contentResult = await Filesystem.readFile({
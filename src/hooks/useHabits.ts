@@ -1,7 +1,7 @@
 import { useState, useCallback, useMemo, useEffect } from 'react';
 import { getAllDiaryData, DayFileData } from './useFileStorage';
 import { subDays, parseISO, differenceInDays } from 'date-fns';
-import { syncAllWidgetData } from '@/lib/syncAllWidgetData';
+import { syncAllWidgetData, syncNativeHabitDay } from '@/lib/syncAllWidgetData';
 
 export interface Habit {
   id: string;
@@ -125,6 +125,7 @@ export const useHabits = () => {
       localStorage.setItem(STORAGE_KEY, JSON.stringify(parsed));
       setDataVersion(v => v + 1);
       notifyHabitsChanged();
+      syncNativeHabitDay(dateKey);
 
       // Force re-render by returning new state
       return currentHabits[habitId];
@@ -16,6 +16,8 @@ export interface AppSettings {
   showAchievements: boolean;
   calendarSelectionColor: string;
   widgetThemeColor: string;
+  // Let the system batch the widgets' midnight refresh with other wakeups (may run late)
+  widgetBatterySaver: boolean;
   diaryName: string;
   appTheme: 'dark' | 'light' | 'system';
 }
@@ -36,6 +38,7 @@ const defaultSettings: AppSettings = {
   showAchievements: true,
   calendarSelectionColor: 'auto',
   widgetThemeColor: '#7C3AED',
+  widgetBatterySaver: false,
   diaryName: "KC's Diary",
   appTheme: 'dark',
 };
@@ -244,6 +247,13 @@ export const useSettings = () => {
     }
   }, [settings]);
 
+  // Push the midnight alarm mode to Android native; only needed when it changes
+  useEffect(() => {
+    if (Capacitor.isNativePlatform()) {
+      widgetsBridge.setMidnightRefreshWindowed(settings.widgetBatterySaver === true);
+    }
+  }, [settings.widgetBatterySaver]);
+
   const updateSetting = useCallback(<K extends keyof AppSettings>(key: K, value: AppSettings[K]) => {
     setSettings(prev => ({ ...prev, [key]: value }));
   }, []);
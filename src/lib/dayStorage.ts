@@ -0,0 +1,55 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { DayFileData } from '@/hooks/useFileStorage';
+
+/**
+ * Native day storage (DayStoragePlugin.java): every diary day is one record in an
+ * append-only log, indexed by day, instead of a kcsdiary/dd-MM-yyyy/ folder with a file
+ * per part. Reading or saving a day is one bridge call, and readAll() returns the whole
+ * history from one sequential read.
+ *
+ * Photo images are still written as files in the day folder; only their metadata is in
+ * the log. readDay(dateKey, true) returns the images inline as base64.
+ */
+
+interface DayStorageNative {
+  readDay(options: { dateKey: string; withPhotos?: boolean }): Promise<{ day?: DayFileData }>;
+  writeDay(options: { dateKey: string; patch: Partial<DayFileData> }): Promise<void>;
+  readAll(): Promise<{ days: Record<string, DayFileData> }>;
+  migrate(): Promise<{ migrated: number; unreadable: string[] }>;
+}
+
+const DayStorage = registerPlugin<DayStorageNative>('DayStorage');
+
+export const dayStorage = {
+  isAvailable: () => Capacitor.isPluginAvailable('DayStorage'),
+
+  /** The stored day, or null if nothing was saved for it. */
+  async readDay(dateKey: string, withPhotos = false): Promise<DayFileData | null> {
+    const result = await DayStorage.readDay({ dateKey, withPhotos });
+    return result.day ?? null;
+  },
+
+  /**
+   * Set the given fields on a day, keeping the rest. Photo base64 is dropped: the images
+   * are stored as separate files.
+   */
+  writeDay(dateKey: string, patch: Partial<DayFileData>): Promise<void> {
+    const stored = patch.photos
+      ? { ...patch, photos: patch.photos.map(({ base64, ...photo }) => photo) }
+      : patch;
+    return DayStorage.writeDay({ dateKey, patch: stored });
+  },
+
+  /** Every stored day by YYYY-MM-DD key, without photo images. */
+  async readAll(): Promise<Record<string, DayFileData>> {
+    return (await DayStorage.readAll()).days;
+  },
+
+  /**
+   * Move the kcsdiary/dd-MM-yyyy/ folders into the log; a no-op after the first success.
+   * Files it could not read are renamed *.unreadable and listed relative to kcsdiary/.
+   */
+  async migrate(): Promise<{ migrated: number; unreadable: string[] }> {
+    return DayStorage.migrate();
+  },
+};
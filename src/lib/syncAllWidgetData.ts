@@ -1,4 +1,4 @@
-import { widgetsBridge } from './widgetsBridge';
+import { widgetsBridge, NativeStats } from './widgetsBridge';
 import { DayFileData } from '@/hooks/useFileStorage';
 import { subDays } from 'date-fns';
 
@@ -9,8 +9,10 @@ import { subDays } from 'date-fns';
  * would overwrite the other's fields.
  *
  * Call this after ANY data change (diary save, habit toggle, photo add, etc.).
+ * Pass the date key of the changed day when there is one: with the native stats
+ * engine only that day is re-counted instead of every diary day.
  */
-export const syncAllWidgetData = async () => {
+export const syncAllWidgetData = async (changedDateKey?: string) => {
   if (!widgetsBridge.isAvailable()) return;
 
   try {
@@ -27,9 +29,16 @@ export const syncAllWidgetData = async () => {
     const habitIds = habitsList.map(h => h.id);
 
     // ──── Stats ────
+    const nativeStats = widgetsBridge.hasNativeStats()
+      ? await loadNativeStats(allDiaryData, changedDateKey)
+      : null;
+    if (widgetsBridge.hasNativeStats()) {
+      // Not awaited: nothing below depends on the habit index
+      syncNativeHabits(allDiaryData, habitIds, changedDateKey);
+    }
     let totalEntries = 0;
     let totalWords = 0;
-    const entryDates: string[] = [];
+    const entryDates = new Set<string>();
 
     // ──── Calendar ────
     const calendarDays: Record<string, { habitProgress: number; hasEntry: boolean }> = {};
@@ -39,11 +48,11 @@ export const syncAllWidgetData = async () => {
       const data = rawDay as DayFileData;
       const hasContent = !!(data?.content?.trim() || data?.photos?.length);
 
-      // Stats accumulation
-      if (hasContent) {
+      // Stats accumulation (JS fallback when the native engine is unavailable)
+      if (hasContent && !nativeStats) {
         totalEntries++;
         totalWords += countWords(data?.content || '');
-        entryDates.push(dateKey);
+        entryDates.add(dateKey);
       }
 
       // Calendar day data (habit progress)
@@ -57,17 +66,22 @@ export const syncAllWidgetData = async () => {
     });
 
     // ──── Streak calculation ────
-    entryDates.sort();
     let currentStreak = 0;
-    const today = new Intl.DateTimeFormat('en-CA').format(new Date());
-    const yesterday = new Intl.DateTimeFormat('en-CA').format(subDays(new Date(), 1));
-    const hasRecentEntry = entryDates.includes(today) || entryDates.includes(yesterday);
-
-    if (hasRecentEntry) {
-      let checkDate = entryDates.includes(today) ? new Date() : subDays(new Date(), 1);
-      while (entryDates.includes(new Intl.DateTimeFormat('en-CA').format(checkDate))) {
-        currentStreak++;
-        checkDate = subDays(checkDate, 1);
+    if (nativeStats) {
+      totalEntries = nativeStats.entries;
+      totalWords = nativeStats.words;
+      currentStreak = nativeStats.streak;
+    } else {
+      const today = new Intl.DateTimeFormat('en-CA').format(new Date());
+      const yesterday = new Intl.DateTimeFormat('en-CA').format(subDays(new Date(), 1));
+      const hasRecentEntry = entryDates.has(today) || entryDates.has(yesterday);
+
+      if (hasRecentEntry) {
+        let checkDate = entryDates.has(today) ? new Date() : subDays(new Date(), 1);
+        while (entryDates.has(new Intl.DateTimeFormat('en-CA').format(checkDate))) {
+          currentStreak++;
+          checkDate = subDays(checkDate, 1);
+        }
       }
     }
 
@@ -106,3 +120,87 @@ const countWords = (text: string): number => {
   if (!text) return 0;
   return text.trim().split(/\s+/).filter(w => w.length > 0).length;
 };
+
+// The native engine persists its per-day store, but it is re-seeded once per app session
+// so days changed outside the save paths (restore, import, deletion) are picked up.
+let nativeStatsSeeded = false;
+
+const loadNativeStats = async (
+  allDiaryData: Record<string, DayFileData>,
+  changedDateKey?: string,
+): Promise<NativeStats | null> => {
+  try {
+    if (!nativeStatsSeeded) {
+      const days = Object.entries(allDiaryData).map(([dateKey, data]) => ({
+        dateKey,
+        content: data?.content || '',
+        hasPhotos: !!data?.photos?.length,
+      }));
+      const stats = await widgetsBridge.rebuildStats(days);
+      nativeStatsSeeded = true;
+      return stats;
+    }
+    if (changedDateKey) {
+      const data = allDiaryData[changedDateKey];
+      return await widgetsBridge.applyStatsDay({
+        dateKey: changedDateKey,
+        content: data?.content || '',
+        hasPhotos: !!data?.photos?.length,
+      });
+    }
+    return await widgetsBridge.getStats();
+  } catch (e) {
+    console.warn('[syncAllWidgetData] Native stats unavailable, counting in JS:', e);
+    return null;
+  }
+};
+
+// Seeded once per session like the stats engine, then kept current one day at a time
+let nativeHabitsSeeded = false;
+
+const completedHabits = (data: DayFileData | undefined): string[] =>
+  Object.entries(data?.habits || {})
+    .filter(([, done]) => done === true)
+    .map(([id]) => id);
+
+const syncNativeHabits = async (
+  allDiaryData: Record<string, DayFileData>,
+  habitIds: string[],
+  changedDateKey?: string,
+) => {
+  try {
+    if (!nativeHabitsSeeded) {
+      const days = Object.entries(allDiaryData)
+        .map(([dateKey, data]) => ({ dateKey, completed: completedHabits(data) }))
+        .filter(day => day.completed.length > 0);
+      await widgetsBridge.rebuildHabits(habitIds, days);
+      nativeHabitsSeeded = true;
+      return;
+    }
+    await widgetsBridge.applyHabitDay(
+      habitIds,
+      changedDateKey
+        ? { dateKey: changedDateKey, completed: completedHabits(allDiaryData[changedDateKey]) }
+        : undefined,
+    );
+  } catch (e) {
+    console.warn('[syncAllWidgetData] Native habit index update failed:', e);
+  }
+};
+
+/**
+ * Push one day's habit completions to the native habit index, e.g. after a habit is
+ * toggled for a past day (which does not change today's widget data).
+ */
+export const syncNativeHabitDay = (dateKey: string) => {
+  if (!widgetsBridge.isAvailable() || !widgetsBridge.hasNativeStats()) return;
+  try {
+    const diaryRaw = localStorage.getItem('diary-app-data');
+    const habitsListRaw = localStorage.getItem('diary-habits-list');
+    const allDiaryData: Record<string, DayFileData> = diaryRaw ? JSON.parse(diaryRaw) : {};
+    const habitsList: { id: string }[] = habitsListRaw ? JSON.parse(habitsListRaw) : [];
+    syncNativeHabits(allDiaryData, habitsList.map(h => h.id), dateKey);
+  } catch (e) {
+    console.warn('[syncAllWidgetData] Native habit day sync failed:', e);
+  }
+};
@@ -1,4 +1,4 @@
-import { Capacitor } from '@capacitor/core';
+import { Capacitor, registerPlugin } from '@capacitor/core';
 import { Filesystem, Directory, Encoding } from '@capacitor/filesystem';
 
 /**
@@ -8,13 +8,82 @@ import { Filesystem, Directory, Encoding } from '@capacitor/filesystem';
  * we write widget data to a JSON file that native Android code reads.
  * 
  * Flow:
- * 1. JS writes to /files/widget-data.json via @capacitor/filesystem
+ * 1. JS writes to /files/widget-bridge/widget-data.json via @capacitor/filesystem
  * 2. Native WidgetDataReader.java reads this file
  * 3. MainActivity.onResume() triggers widget refresh
  * 4. Widgets display correct data
+ *
+ * When the native WidgetBridge plugin is present (WidgetBridgePlugin.java), the data is
+ * pushed to it in memory instead: widgets refresh immediately and native code writes
+ * both files afterwards for cold starts. The file path remains the fallback.
+ *
+ * Every write also emits /files/widget-bridge/widget-data.bin: a fixed header plus one byte per
+ * day indexed by epoch day, which the native side memory-maps (WidgetBinaryData.java)
+ * instead of parsing calendarDays. Both files carry the same `sequence` so native
+ * code can tell whether the binary matches the JSON it sits next to.
  */
 
-const WIDGET_DATA_FILE = 'widget-data.json';
+// Dedicated directory so the native file observer only wakes for bridge writes
+const WIDGET_BRIDGE_DIR = 'widget-bridge';
+const WIDGET_DATA_FILE = `${WIDGET_BRIDGE_DIR}/widget-data.json`;
+const WIDGET_BINARY_FILE = `${WIDGET_BRIDGE_DIR}/widget-data.bin`;
+// Pre-bridge-directory locations, read once as a fallback and then removed
+const LEGACY_DATA_FILE = 'widget-data.json';
+const LEGACY_BINARY_FILE = 'widget-data.bin';
+
+// Must match WidgetBinaryData.java
+const BINARY_VERSION = 1;
+const BINARY_HEADER_SIZE = 56;
+const BINARY_FLAG_HAS_THEME = 1;
+const MS_PER_DAY = 86400000;
+// Calendar days outside 1900-01-01..2199-12-31 are dropped (DateKeys.inRange in Java), so a
+// stray key cannot size the day array to millions of entries
+const MIN_EPOCH_DAY = Date.UTC(1900, 0, 1) / MS_PER_DAY;
+const MAX_EPOCH_DAY = Date.UTC(2199, 11, 31) / MS_PER_DAY;
+
+export interface NativeStats {
+  seeded: boolean;
+  entries: number;
+  words: number;
+  streak: number;
+}
+
+export interface StatsDay {
+  dateKey: string;
+  content: string;
+  hasPhotos: boolean;
+}
+
+export interface HabitDay {
+  dateKey: string;
+  completed: string[];
+}
+
+export interface NativeHabitStats {
+  // Fraction (0-1) of today's habits completed
+  todayFraction: number;
+  habits: {
+    id: string;
+    currentStreak: number;
+    longestStreak: number;
+    // Fraction (0-1) of the last 7 / 30 days completed
+    rate7: number;
+    rate30: number;
+  }[];
+}
+
+interface WidgetBridgeNative {
+  publish(data: WidgetData): Promise<void>;
+  applyStatsDay(day: StatsDay): Promise<NativeStats>;
+  rebuildStats(options: { days: StatsDay[] }): Promise<NativeStats>;
+  getStats(): Promise<NativeStats>;
+  applyHabitDay(options: { habits: string[] } & Partial<HabitDay>): Promise<NativeHabitStats>;
+  rebuildHabits(options: { habits: string[]; days: HabitDay[] }): Promise<NativeHabitStats>;
+  getHabitStats(): Promise<NativeHabitStats>;
+  setMidnightRefreshMode(options: { windowed: boolean }): Promise<void>;
+}
+
+const WidgetBridge = registerPlugin<WidgetBridgeNative>('WidgetBridge');
 
 interface CalendarDayData {
   habitProgress: number; // 0-100
@@ -22,6 +91,7 @@ interface CalendarDayData {
 }
 
 interface WidgetData {
+  sequence: number;
   habitsCompleted: number;
   habitsTotal: number;
   habitsDate: string;
@@ -36,14 +106,19 @@ interface WidgetData {
   calendarDays: Record<string, CalendarDayData>;
 }
 
-// No cache - always read fresh data to prevent race conditions
-// The file is small so reads are fast
+// No file cache - always read fresh data to prevent race conditions
+// The file is small so reads are fast. Only data handed to the native plugin is kept,
+// because the plugin persists it asynchronously and the file may lag behind.
+let published: WidgetData | null = null;
 
 /**
  * Read current widget data from file
  */
 async function readWidgetData(): Promise<WidgetData> {
+  if (published) return published;
+
   const defaultData: WidgetData = {
+    sequence: 0,
     habitsCompleted: 0,
     habitsTotal: 0,
     habitsDate: '',
@@ -62,7 +137,11 @@ async function readWidgetData(): Promise<WidgetData> {
       path: WIDGET_DATA_FILE,
       directory: Directory.Data,
       encoding: Encoding.UTF8,
-    });
+    }).catch(() => Filesystem.readFile({
+      path: LEGACY_DATA_FILE,
+      directory: Directory.Data,
+      encoding: Encoding.UTF8,
+    }));
 
     const parsed = JSON.parse(result.data as string) as WidgetData;
     return { ...defaultData, ...parsed };
@@ -71,6 +150,132 @@ async function readWidgetData(): Promise<WidgetData> {
   }
 }
 
+let lastSequence = 0;
+
+/**
+ * Monotonic write sequence shared by widget-data.json and widget-data.bin.
+ */
+function nextSequence(): number {
+  lastSequence = Math.max(Date.now(), lastSequence + 1);
+  return lastSequence;
+}
+
+/**
+ * Parse a YYYY-MM-DD key into days since 1970-01-01, or null if malformed.
+ */
+function toEpochDay(dateKey: string): number | null {
+  const match = /^(\d{4})-(\d{2})-(\d{2})$/.exec(dateKey);
+  if (!match) return null;
+  return Math.floor(Date.UTC(+match[1], +match[2] - 1, +match[3]) / MS_PER_DAY);
+}
+
+/**
+ * Parse #RRGGBB / #AARRGGBB into an ARGB int, or null if malformed.
+ */
+function parseThemeColor(hex: string): number | null {
+  const digits = hex?.startsWith('#') ? hex.slice(1) : '';
+  if (!/^([0-9a-fA-F]{6}|[0-9a-fA-F]{8})$/.test(digits)) return null;
+  const argb = digits.length === 6 ? 'FF' + digits : digits;
+  return parseInt(argb, 16) | 0;
+}
+
+/**
+ * Encode widget data into the compact binary layout read by WidgetBinaryData.java.
+ * Returns base64, which is what Filesystem.writeFile expects for binary data.
+ */
+function encodeWidgetBinary(data: WidgetData): string {
+  let firstDay = Number.MAX_SAFE_INTEGER;
+  let lastDay = Number.MIN_SAFE_INTEGER;
+  const days: [number, CalendarDayData][] = [];
+  for (const [dateKey, day] of Object.entries(data.calendarDays || {})) {
+    const epochDay = toEpochDay(dateKey);
+    if (epochDay === null || epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY) continue;
+    days.push([epochDay, day]);
+    firstDay = Math.min(firstDay, epochDay);
+    lastDay = Math.max(lastDay, epochDay);
+  }
+  const dayCount = days.length > 0 ? lastDay - firstDay + 1 : 0;
+  if (dayCount === 0) firstDay = 0;
+
+  const bytes = new Uint8Array(BINARY_HEADER_SIZE + dayCount);
+  const view = new DataView(bytes.buffer);
+  bytes.set([0x4b, 0x43, 0x57, 0x42]); // "KCWB"
+  view.setUint16(4, BINARY_VERSION, true);
+  view.setUint16(6, BINARY_HEADER_SIZE, true);
+  view.setBigInt64(8, BigInt(data.sequence), true);
+  view.setInt32(16, data.habitsCompleted | 0, true);
+  view.setInt32(20, data.habitsTotal | 0, true);
+  view.setInt32(24, toEpochDay(data.habitsDate) ?? -1, true);
+  view.setInt32(28, data.statsEntries | 0, true);
+  view.setInt32(32, data.statsStreak | 0, true);
+  view.setInt32(36, data.statsWords | 0, true);
+  const theme = parseThemeColor(data.themeColor);
+  view.setInt32(40, theme ?? 0, true);
+  view.setInt32(44, theme === null ? 0 : BINARY_FLAG_HAS_THEME, true);
+  view.setInt32(48, firstDay, true);
+  view.setInt32(52, dayCount, true);
+
+  for (const [epochDay, day] of days) {
+    const progress = Math.max(0, Math.min(100, Math.round(day.habitProgress || 0)));
+    bytes[BINARY_HEADER_SIZE + epochDay - firstDay] = progress | (day.hasEntry ? 0x80 : 0);
+  }
+
+  let binary = '';
+  for (let i = 0; i < bytes.length; i += 0x8000) {
+    binary += String.fromCharCode(...bytes.subarray(i, i + 0x8000));
+  }
+  return btoa(binary);
+}
+
+/**
+ * Hand the data to the native plugin when present; it refreshes the widgets and then
+ * writes the bridge files itself. Otherwise persist both bridge files. The binary goes
+ * first so it is already in place when the native file observer sees widget-data.json
+ * change. JSON keys are ordered so the fields native code still needs from it
+ * (sequence, snippet) come first and calendarDays last.
+ *
+ * Each file is written under a temporary name and renamed over the old one, as native
+ * persist() does: native code memory-maps widget-data.bin, and rewriting a mapped file in
+ * place can tear its reads or fault on a truncated page.
+ */
+async function persistWidgetData(data: WidgetData): Promise<void> {
+  const { sequence, todayDate, todaySnippet, calendarDays, ...rest } = data;
+  if (Capacitor.isPluginAvailable('WidgetBridge')) {
+    published = data;
+    await WidgetBridge.publish({ sequence, todayDate, todaySnippet, ...rest, calendarDays });
+    await removeLegacyFiles();
+    return;
+  }
+  await replaceFile(WIDGET_BINARY_FILE, encodeWidgetBinary(data));
+  await replaceFile(
+    WIDGET_DATA_FILE,
+    JSON.stringify({ sequence, todayDate, todaySnippet, ...rest, calendarDays }),
+    Encoding.UTF8,
+  );
+  await removeLegacyFiles();
+}
+
+/** Write `path.tmp` and rename it over `path`, so readers only ever see a complete file. */
+async function replaceFile(path: string, data: string, encoding?: Encoding): Promise<void> {
+  const tmp = `${path}.tmp`;
+  await Filesystem.writeFile({ path: tmp, directory: Directory.Data, data, encoding, recursive: true });
+  await Filesystem.rename({ from: tmp, to: path, directory: Directory.Data });
+}
+
+let legacyRemoved = false;
+
+/**
+ * Delete the bridge files from their old location in the root of Directory.Data,
+ * once the new ones exist, so native code never falls back to stale data.
+ */
+async function removeLegacyFiles(): Promise<void> {
+  if (legacyRemoved) return;
+  legacyRemoved = true;
+  for (const path of [LEGACY_BINARY_FILE, LEGACY_DATA_FILE]) {
+    await Filesystem.deleteFile({ path, directory: Directory.Data }).catch(() => undefined);
+  }
+}
+
 /**
  * Write widget data to file (partial merge with existing)
  */
@@ -80,15 +285,11 @@ async function writeWidgetData(data: Partial<WidgetData>): Promise<void> {
     const updated: WidgetData = {
       ...current,
       ...data,
+      sequence: nextSequence(),
       lastUpdated: new Date().toISOString(),
     };
 
-    await Filesystem.writeFile({
-      path: WIDGET_DATA_FILE,
-      directory: Directory.Data,
-      encoding: Encoding.UTF8,
-      data: JSON.stringify(updated),
-    });
+    await persistWidgetData(updated);
   } catch (e) {
     console.warn('[widgetsBridge] Failed to write widget data:', e);
   }
@@ -100,12 +301,7 @@ async function writeWidgetData(data: Partial<WidgetData>): Promise<void> {
  */
 async function writeWidgetDataAtomic(data: WidgetData): Promise<void> {
   try {
-    await Filesystem.writeFile({
-      path: WIDGET_DATA_FILE,
-      directory: Directory.Data,
-      encoding: Encoding.UTF8,
-      data: JSON.stringify(data),
-    });
+    await persistWidgetData(data);
   } catch (e) {
     console.warn('[widgetsBridge] Failed to write widget data:', e);
   }
@@ -114,6 +310,52 @@ async function writeWidgetDataAtomic(data: WidgetData): Promise<void> {
 export const widgetsBridge = {
   isAvailable: () => Capacitor.isNativePlatform(),
 
+  /** Whether the native incremental stats engine (DiaryStatsEngine.java) can be used. */
+  hasNativeStats: () => Capacitor.isPluginAvailable('WidgetBridge'),
+
+  /** Apply one saved day to the native stats engine and return the new totals. */
+  applyStatsDay(day: StatsDay): Promise<NativeStats> {
+    return WidgetBridge.applyStatsDay(day);
+  },
+
+  /** Replace all days held by the native stats engine. */
+  rebuildStats(days: StatsDay[]): Promise<NativeStats> {
+    return WidgetBridge.rebuildStats({ days });
+  },
+
+  getStats(): Promise<NativeStats> {
+    return WidgetBridge.getStats();
+  },
+
+  /**
+   * Update the native habit index (HabitIndex.java) with the current habit list and,
+   * optionally, one day's completed habit ids.
+   */
+  applyHabitDay(habits: string[], day?: HabitDay): Promise<NativeHabitStats> {
+    return WidgetBridge.applyHabitDay({ habits, ...day });
+  },
+
+  /** Replace the whole native habit index. */
+  rebuildHabits(habits: string[], days: HabitDay[]): Promise<NativeHabitStats> {
+    return WidgetBridge.rebuildHabits({ habits, days });
+  },
+
+  /** Per-habit current/longest streak and 7/30-day rates, without scanning history. */
+  getHabitStats(): Promise<NativeHabitStats> {
+    return WidgetBridge.getHabitStats();
+  },
+
+  /**
+   * Use a windowed midnight alarm, which the system can batch with other wakeups, instead
+   * of the default exact one. The daily reset may then show up to ten minutes late.
+   */
+  async setMidnightRefreshWindowed(windowed: boolean) {
+    if (!Capacitor.isPluginAvailable('WidgetBridge')) return;
+    await WidgetBridge.setMidnightRefreshMode({ windowed }).catch((e) => {
+      console.warn('[widgetsBridge] Failed to set the midnight refresh mode:', e);
+    });
+  },
+
   async setWidgetThemeColor(hex: string) {
     if (!Capacitor.isNativePlatform()) return;
     await writeWidgetData({ themeColor: hex });
@@ -192,6 +434,7 @@ export const widgetsBridge = {
     } catch {}
     const fullData: WidgetData = {
       ...data,
+      sequence: nextSequence(),
       themeColor,
       lastUpdated: new Date().toISOString(),
     };
@@ -506,6 +506,25 @@ const Settings = () => {
                     <RefreshCw className="w-4 h-4" />
                     <span className="text-sm font-medium">Refresh All Widgets</span>
                   </button>
+                  <button
+                    onClick={() => updateSetting('widgetBatterySaver', !settings.widgetBatterySaver)}
+                    className={`mt-3 w-full flex items-center justify-between p-3 rounded-lg border transition-smooth
+                      ${settings.widgetBatterySaver
+                        ? 'border-primary bg-primary/10'
+                        : 'border-border hover:border-primary/30'
+                      }`}
+                  >
+                    <div className="text-left">
+                      <span className="block text-sm text-foreground">Battery Saver Midnight Refresh</span>
+                      <span className="block text-xs text-muted-foreground">Widgets may reset up to 10 minutes after midnight</span>
+                    </div>
+                    <div className={`w-10 h-6 shrink-0 rounded-full transition-all ${
+                      settings.widgetBatterySaver ? 'bg-primary' : 'bg-muted'
+                    }`}>
+                      <div className={`w-5 h-5 rounded-full bg-white mt-0.5 transition-all`}
+                        style={{ marginLeft: settings.widgetBatterySaver ? '18px' : '2px' }} />
+                    </div>
+                  </button>
                 </div>
               </div>
             </CollapsibleContent>